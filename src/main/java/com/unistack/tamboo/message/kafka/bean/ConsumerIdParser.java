@@ -0,0 +1,107 @@
+package com.unistack.tamboo.message.kafka.bean;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Parse the ip, process id and thread id out of a consumer id, which looks like
+ * {@code <client>_<pid>@<host>_<tid>-<uuid>_/<ip>}. The pattern is compiled once and the result of
+ * every distinct consumer id is cached, since the same consumer shows up in every sweep.
+ */
+public final class ConsumerIdParser {
+
+    private static final Pattern PATTERN = Pattern.compile("(.*)_([0-9]+)@(.*)_([0-9]+)-(.*)_(.*)");
+
+    /**
+     * the cache is dropped when it grows over this size, consumer ids change on every restart
+     */
+    private static final int MAX_CACHED = 100000;
+
+    private static final ConsumerId NONE = new ConsumerId(null, null, null);
+
+    private static final ConcurrentMap<String, ConsumerId> CACHE = new ConcurrentHashMap<>();
+
+
+    private ConsumerIdParser() {
+    }
+
+
+    /**
+     * @param consumerId
+     * @return the parsed id, the fields are null if the consumer id doesn't match
+     */
+    public static ConsumerId parse(String consumerId) {
+        if (consumerId == null) {
+            return NONE;
+        }
+        ConsumerId parsed = CACHE.get(consumerId);
+        if (parsed == null) {
+            parsed = doParse(consumerId);
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            CACHE.put(consumerId, parsed);
+        }
+        return parsed;
+    }
+
+
+    private static ConsumerId doParse(String consumerId) {
+        Matcher matcher = PATTERN.matcher(consumerId);
+        if (!matcher.find()) {
+            return NONE;
+        }
+        return new ConsumerId(removeSlashes(matcher.group(6)), matcher.group(2), matcher.group(4));
+    }
+
+
+    private static String removeSlashes(String s) {
+        if (s.indexOf('/') < 0) {
+            return s;
+        }
+        StringBuilder builder = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != '/') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * the fields expanded from a consumer id.
+     */
+    public static final class ConsumerId {
+
+        private final String ip;
+
+        private final String pid;
+
+        private final String tid;
+
+        ConsumerId(String ip, String pid, String tid) {
+            this.ip = ip;
+            this.pid = pid;
+            this.tid = tid;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+
+        public String getPid() {
+            return pid;
+        }
+
+        public String getTid() {
+            return tid;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package com.unistack.tamboo.message.kafka.bean;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * @author Gyges Zean
  * @date 2018/5/24
@@ -16,6 +13,8 @@ public class ConsumerOffset {
     private long logEndOffset;
     private long logStartOffset;
     private long timestamp;
+    // estimated time the committed offset is behind the head, -1 if unknown
+    private long timeLagMs = -1L;
 
     private String consumerId;
     // expanded fields from consumerId
@@ -57,24 +56,24 @@ public class ConsumerOffset {
         this.timestamp = timestamp;
     }
 
+    public long getTimeLagMs() {
+        return timeLagMs;
+    }
+
+    public void setTimeLagMs(long timeLagMs) {
+        this.timeLagMs = timeLagMs;
+    }
+
     public String getConsumerId() {
         return consumerId;
     }
 
     public void setConsumerId(String consumerId) {
         this.consumerId = consumerId;
-        try {
-            String regex = "(.*)_([0-9]+)@(.*)_([0-9]+)-(.*)_(.*)";
-            Pattern pattern = Pattern.compile(regex);
-            Matcher matcher = pattern.matcher(consumerId);
-            if (matcher.find()) {
-                ip = matcher.group(6).replaceAll("\\/", "");
-                pid = matcher.group(2);
-                tid = matcher.group(4);
-            }
-        } catch (Exception e) {
-        }
-
+        ConsumerIdParser.ConsumerId parsed = ConsumerIdParser.parse(consumerId);
+        ip = parsed.getIp();
+        pid = parsed.getPid();
+        tid = parsed.getTid();
     }
 
     public long getLogEndOffset() {
@@ -127,7 +126,7 @@ public class ConsumerOffset {
 
     public String toString() {
         return "group = " + group + ", topic = " + topic + ", partition = " + partition + ", offset = " + offset
-                + ", logEndOffset = " + logEndOffset + ", logStartOffset = " + logStartOffset + ", consumerId = "
+                + ", logEndOffset = " + logEndOffset + ", logStartOffset = " + logStartOffset + ", timeLagMs = " + timeLagMs + ", consumerId = "
                 + consumerId;
     }
 }
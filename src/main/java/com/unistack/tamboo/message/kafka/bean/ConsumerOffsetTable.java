@@ -0,0 +1,232 @@
+package com.unistack.tamboo.message.kafka.bean;
+
+import com.google.common.collect.Lists;
+import com.unistack.tamboo.message.kafka.util.StringDictionary;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A columnar alternative to {@code List<ConsumerOffset>}: every column is a primitive array and the
+ * group, topic and consumer id strings are dictionary encoded, so a sweep of tens of thousands of
+ * partitions is a handful of arrays instead of one object and seven strings per row. The consumer id
+ * is only parsed when the ip, pid or tid of a row is asked for.
+ * <p>
+ * Not thread safe.
+ */
+public class ConsumerOffsetTable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final long timestamp;
+
+    private final StringDictionary groups = new StringDictionary();
+
+    private final StringDictionary topics = new StringDictionary();
+
+    private final StringDictionary consumerIds = new StringDictionary();
+
+    private int size = 0;
+
+    private int[] groupIds;
+
+    private int[] topicIds;
+
+    private int[] partitions;
+
+    private int[] consumerIdIds;
+
+    private long[] offsets;
+
+    private long[] logEndOffsets;
+
+    private long[] logStartOffsets;
+
+    private long[] timeLagMs;
+
+
+    public ConsumerOffsetTable(long timestamp) {
+        this(DEFAULT_CAPACITY, timestamp);
+    }
+
+    /**
+     * @param expectedSize the expected number of rows
+     * @param timestamp    the time the offsets were collected
+     */
+    public ConsumerOffsetTable(int expectedSize, long timestamp) {
+        int capacity = Math.max(expectedSize, 1);
+        this.timestamp = timestamp;
+        this.groupIds = new int[capacity];
+        this.topicIds = new int[capacity];
+        this.partitions = new int[capacity];
+        this.consumerIdIds = new int[capacity];
+        this.offsets = new long[capacity];
+        this.logEndOffsets = new long[capacity];
+        this.logStartOffsets = new long[capacity];
+        this.timeLagMs = new long[capacity];
+    }
+
+
+    /**
+     * the adapter from the row representation.
+     *
+     * @param offsets
+     * @return
+     */
+    public static ConsumerOffsetTable from(List<ConsumerOffset> offsets) {
+        long timestamp = offsets.isEmpty() ? System.currentTimeMillis() : offsets.get(0).getTimestamp();
+        ConsumerOffsetTable table = new ConsumerOffsetTable(offsets.size(), timestamp);
+        for (ConsumerOffset offset : offsets) {
+            int row = table.add(offset.getGroup(), offset.getTopic(), offset.getPartition(), offset.getOffset(),
+                    offset.getLogEndOffset(), offset.getLogStartOffset(), offset.getConsumerId());
+            table.setTimeLagMs(row, offset.getTimeLagMs());
+        }
+        return table;
+    }
+
+
+    /**
+     * append a row.
+     *
+     * @return the index of the row
+     */
+    public int add(String group, String topic, int partition, long offset, long logEndOffset,
+                   long logStartOffset, String consumerId) {
+        if (size == offsets.length) {
+            grow();
+        }
+        int row = size++;
+        groupIds[row] = groups.encode(group);
+        topicIds[row] = topics.encode(topic);
+        partitions[row] = partition;
+        consumerIdIds[row] = consumerIds.encode(consumerId);
+        offsets[row] = offset;
+        logEndOffsets[row] = logEndOffset;
+        logStartOffsets[row] = logStartOffset;
+        timeLagMs[row] = -1L;
+        return row;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public String group(int row) {
+        return groups.decode(groupIds[row]);
+    }
+
+    public int groupId(int row) {
+        return groupIds[row];
+    }
+
+    public String topic(int row) {
+        return topics.decode(topicIds[row]);
+    }
+
+    public int topicId(int row) {
+        return topicIds[row];
+    }
+
+    public int partition(int row) {
+        return partitions[row];
+    }
+
+    public long offset(int row) {
+        return offsets[row];
+    }
+
+    public long logEndOffset(int row) {
+        return logEndOffsets[row];
+    }
+
+    public long logStartOffset(int row) {
+        return logStartOffsets[row];
+    }
+
+    public long lag(int row) {
+        return Math.max(0L, logEndOffsets[row] - offsets[row]);
+    }
+
+    public long timeLagMs(int row) {
+        return timeLagMs[row];
+    }
+
+    public void setTimeLagMs(int row, long value) {
+        timeLagMs[row] = value;
+    }
+
+    public String consumerId(int row) {
+        return consumerIds.decode(consumerIdIds[row]);
+    }
+
+    public String ip(int row) {
+        return ConsumerIdParser.parse(consumerId(row)).getIp();
+    }
+
+    public String pid(int row) {
+        return ConsumerIdParser.parse(consumerId(row)).getPid();
+    }
+
+    public String tid(int row) {
+        return ConsumerIdParser.parse(consumerId(row)).getTid();
+    }
+
+    /**
+     * @return the dictionary id of the group, -1 if the group is not in the table
+     */
+    public int lookupGroup(String group) {
+        return groups.lookup(group);
+    }
+
+    /**
+     * @return the dictionary id of the topic, -1 if the topic is not in the table
+     */
+    public int lookupTopic(String topic) {
+        return topics.lookup(topic);
+    }
+
+
+    /**
+     * the adapter to the row representation for the existing callers.
+     *
+     * @param row
+     * @return
+     */
+    public ConsumerOffset toConsumerOffset(int row) {
+        ConsumerOffset offset = new ConsumerOffset(group(row), topic(row), partitions[row], offsets[row],
+                logEndOffsets[row], logStartOffsets[row], consumerId(row));
+        offset.setTimestamp(timestamp);
+        offset.setTimeLagMs(timeLagMs[row]);
+        return offset;
+    }
+
+
+    public List<ConsumerOffset> toConsumerOffsets() {
+        List<ConsumerOffset> list = Lists.newArrayListWithCapacity(size);
+        for (int row = 0; row < size; row++) {
+            list.add(toConsumerOffset(row));
+        }
+        return list;
+    }
+
+
+    private void grow() {
+        int capacity = offsets.length + (offsets.length >> 1) + 1;
+        groupIds = Arrays.copyOf(groupIds, capacity);
+        topicIds = Arrays.copyOf(topicIds, capacity);
+        partitions = Arrays.copyOf(partitions, capacity);
+        consumerIdIds = Arrays.copyOf(consumerIdIds, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        logEndOffsets = Arrays.copyOf(logEndOffsets, capacity);
+        logStartOffsets = Arrays.copyOf(logStartOffsets, capacity);
+        timeLagMs = Arrays.copyOf(timeLagMs, capacity);
+    }
+}
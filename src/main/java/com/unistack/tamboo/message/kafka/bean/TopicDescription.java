@@ -11,6 +11,7 @@ import java.util.List;
  */
 public class TopicDescription {
 
+    private String name;
     private boolean internal;
     private List<TopicPartitionInfo> partitions;
 
@@ -25,6 +26,22 @@ public class TopicDescription {
     }
 
 
+    public TopicDescription(String name, boolean internal, List<TopicPartitionInfo> partitions) {
+        this.name = name;
+        this.internal = internal;
+        this.partitions = partitions;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+
     public boolean isInternal() {
         return internal;
     }
@@ -45,6 +62,7 @@ public class TopicDescription {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("name", name)
                 .add("internal", internal)
                 .add("partitions", partitions)
                 .toString();
@@ -0,0 +1,86 @@
+package com.unistack.tamboo.message.kafka.bean;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * The outcome of the creation of a single topic by a bulk provisioning.
+ */
+public class TopicProvisionResult {
+
+    public enum Status {
+        CREATED, EXISTED, FAILED
+    }
+
+    private String topic;
+    private Status status;
+    private String reason;
+
+
+    public TopicProvisionResult() {
+    }
+
+
+    public TopicProvisionResult(String topic, Status status, String reason) {
+        this.topic = topic;
+        this.status = status;
+        this.reason = reason;
+    }
+
+
+    public static TopicProvisionResult created(String topic) {
+        return new TopicProvisionResult(topic, Status.CREATED, null);
+    }
+
+    public static TopicProvisionResult existed(String topic) {
+        return new TopicProvisionResult(topic, Status.EXISTED, null);
+    }
+
+    public static TopicProvisionResult failed(String topic, Throwable cause) {
+        return new TopicProvisionResult(topic, Status.FAILED,
+                cause.getClass().getSimpleName() + ": " + cause.getMessage());
+    }
+
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return why the topic could not be created, null unless failed
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public boolean isAvailable() {
+        return status == Status.CREATED || status == Status.EXISTED;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("topic", topic)
+                .add("status", status)
+                .add("reason", reason)
+                .toString();
+    }
+}
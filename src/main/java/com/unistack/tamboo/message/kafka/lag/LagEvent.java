@@ -0,0 +1,77 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A change of the state of a {@link LagRule} on a (group, topic).
+ */
+public class LagEvent {
+
+    public enum State {
+        RAISED,
+        CLEARED
+    }
+
+    private final LagRule rule;
+
+    private final String group;
+
+    private final String topic;
+
+    private final State state;
+
+    private final double value;
+
+    private final long timestamp;
+
+    public LagEvent(LagRule rule, String group, String topic, State state, double value, long timestamp) {
+        this.rule = rule;
+        this.group = group;
+        this.topic = topic;
+        this.state = state;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    public LagRule getRule() {
+        return rule;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the value of the metric which changed the state, 0 if the (group, topic) is gone
+     */
+    public double getValue() {
+        return value;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("rule", rule.id())
+                .add("group", group)
+                .add("topic", topic)
+                .add("state", state)
+                .add("value", value)
+                .add("timestamp", timestamp)
+                .toString();
+    }
+}
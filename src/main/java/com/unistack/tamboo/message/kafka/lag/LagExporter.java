@@ -0,0 +1,300 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.util.CommonUtils;
+import com.unistack.tamboo.message.kafka.util.ConfigHelper;
+import com.unistack.tamboo.message.kafka.util.KafkaTopicBaseLog;
+import com.unistack.tamboo.message.kafka.util.TopicAdmin;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Publish the latest lag of every partition to a compacted topic, keyed by group/topic-partition, so
+ * that any number of readers can share a single collector. The topic is read back in the background to
+ * know which keys exist, so a partition which is gone gets a tombstone even if it disappeared while the
+ * exporter was down.
+ * <p>
+ * The producer lingers and compresses large batches, a sweep is thousands of small records. Like every
+ * {@link KafkaTopicBaseLog} it writes with {@code acks=all} and one request in flight, which keeps the
+ * values and the tombstones of a key in order.
+ */
+public class LagExporter implements Callback<LagSnapshot>, AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(LagExporter.class);
+
+    public static final String CONSUMER_GROUP_ID_PREFIX = "tamboo-lag-exporter-";
+
+    public static final int DEFAULT_PARTITIONS = 6;
+
+    public static final short DEFAULT_REPLICATION_FACTOR = 3;
+
+    public static final int LINGER_MS = 100;
+
+    public static final int BATCH_SIZE = 512 * 1024;
+
+    public static final String COMPRESSION_TYPE = "lz4";
+
+    private final String topic;
+
+    private final KafkaTopicBaseLog<String, byte[]> lagLog;
+
+    /**
+     * the keys which are live in the topic, guarded by itself: updated by the exports and by the reader
+     */
+    private final Set<String> exported = Sets.newHashSet();
+
+    /**
+     * key -> the records sent and not read back yet; the reader does not touch the keys with pending
+     * records, since the exports already reflect a newer state than the records read. Guarded by
+     * {@link #exported}.
+     */
+    private final Map<String, Integer> pending = Maps.newHashMap();
+
+    private boolean started = false;
+
+    private boolean synced = false;
+
+
+    public LagExporter(String bootstrapServers, String topic) {
+        this(bootstrapServers, topic, DEFAULT_PARTITIONS, DEFAULT_REPLICATION_FACTOR);
+    }
+
+    /**
+     * @param bootstrapServers
+     * @param topic             the compacted topic, created if it doesn't exist
+     * @param partitions        the partitions of the topic if it is created
+     * @param replicationFactor the replication factor of the topic if it is created
+     */
+    public LagExporter(String bootstrapServers, String topic, int partitions, short replicationFactor) {
+        this.topic = topic;
+        Map<String, Object> securityProps = ConfigHelper.toMap(CommonUtils.getSecurityProps(bootstrapServers));
+
+        Map<String, Object> producerProps = Maps.newHashMap();
+        producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        producerProps.put(ProducerConfig.LINGER_MS_CONFIG, LINGER_MS);
+        producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, BATCH_SIZE);
+        producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, COMPRESSION_TYPE);
+        producerProps.putAll(securityProps);
+
+        Map<String, Object> consumerProps = Maps.newHashMap();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, CONSUMER_GROUP_ID_PREFIX + topic);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        consumerProps.putAll(securityProps);
+
+        Map<String, Object> adminProps = Maps.newHashMap();
+        adminProps.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        adminProps.putAll(securityProps);
+        final NewTopic topicDescription = TopicAdmin.defineTopic(topic)
+                .compacted()
+                .partitions(partitions)
+                .replicationFactor(replicationFactor)
+                .build();
+
+        Runnable createTopics = () -> {
+            try (TopicAdmin admin = new TopicAdmin(adminProps)) {
+                admin.createTopics(topicDescription);
+            } catch (Exception e) {
+                log.error("Failed to create the lag topic " + topic, e);
+            }
+        };
+
+        Callback<ConsumerRecord<String, byte[]>> readCallback = new Callback<ConsumerRecord<String, byte[]>>() {
+            @Override
+            public void onCompletion(Throwable error, ConsumerRecord<String, byte[]> record) {
+                read(record);
+            }
+        };
+        this.lagLog = new KafkaTopicBaseLog<>(producerProps, consumerProps, readCallback, topic, Time.SYSTEM,
+                createTopics, true);
+    }
+
+
+    /**
+     * create the topic if needed and read the existing keys.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        lagLog.start();
+        started = true;
+    }
+
+
+    @Override
+    public void onCompletion(Throwable error, LagSnapshot snapshot) {
+        if (error == null) {
+            export(snapshot);
+        }
+    }
+
+
+    /**
+     * publish the changed partitions of a snapshot and a tombstone for every removed partition. The
+     * first snapshot is compared with the keys in the topic instead.
+     *
+     * @param snapshot
+     */
+    public synchronized void export(LagSnapshot snapshot) {
+        start();
+        if (!synced) {
+            export(snapshot.offsets());
+            return;
+        }
+        for (ConsumerOffset offset : snapshot.changes()) {
+            send(LagKey.of(offset).toString(), offset);
+        }
+        for (LagKey key : snapshot.removed()) {
+            send(key.toString(), null);
+        }
+    }
+
+
+    /**
+     * publish every partition, and a tombstone for every key in the topic which is not in the list.
+     *
+     * @param offsets all of the offsets of a sweep
+     */
+    public synchronized void export(List<ConsumerOffset> offsets) {
+        start();
+        Set<String> keys = Sets.newHashSetWithExpectedSize(offsets.size());
+        for (ConsumerOffset offset : offsets) {
+            String key = LagKey.of(offset).toString();
+            keys.add(key);
+            send(key, offset);
+        }
+        Set<String> live;
+        synchronized (exported) {
+            live = Sets.newHashSet(exported);
+        }
+        for (String key : live) {
+            if (!keys.contains(key)) {
+                send(key, null);
+            }
+        }
+        synced = true;
+    }
+
+
+    public void flush() {
+        lagLog.flush();
+    }
+
+
+    @Override
+    public synchronized void close() {
+        if (!started) {
+            return;
+        }
+        lagLog.flush();
+        lagLog.stop();
+        started = false;
+    }
+
+
+    public String topic() {
+        return topic;
+    }
+
+
+    private void send(final String key, ConsumerOffset offset) {
+        byte[] value = offset == null ? null : serialize(offset);
+        synchronized (exported) {
+            if (value == null) {
+                exported.remove(key);
+            } else {
+                exported.add(key);
+            }
+            pending.merge(key, 1, Integer::sum);
+        }
+        lagLog.send(key, value, new org.apache.kafka.clients.producer.Callback() {
+            @Override
+            public void onCompletion(RecordMetadata metadata, Exception exception) {
+                if (exception != null) {
+                    log.error("Failed to export the lag of " + key, exception);
+                    // never read back
+                    synchronized (exported) {
+                        readBack(key);
+                    }
+                }
+            }
+        });
+    }
+
+
+    private void read(ConsumerRecord<String, byte[]> record) {
+        if (record.key() == null) {
+            return;
+        }
+        synchronized (exported) {
+            if (readBack(record.key())) {
+                return;
+            }
+            if (record.value() == null) {
+                exported.remove(record.key());
+            } else {
+                exported.add(record.key());
+            }
+        }
+    }
+
+
+    /**
+     * @return if a record of the key was pending
+     */
+    private boolean readBack(String key) {
+        Integer count = pending.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count <= 1) {
+            pending.remove(key);
+        } else {
+            pending.put(key, count - 1);
+        }
+        return true;
+    }
+
+
+    private static byte[] serialize(ConsumerOffset offset) {
+        JSONObject json = new JSONObject();
+        json.put("group", offset.getGroup());
+        json.put("topic", offset.getTopic());
+        json.put("partition", offset.getPartition());
+        json.put("offset", offset.getOffset());
+        json.put("logEndOffset", offset.getLogEndOffset());
+        json.put("logStartOffset", offset.getLogStartOffset());
+        json.put("lag", Math.max(0L, offset.getLogEndOffset() - offset.getOffset()));
+        json.put("timeLagMs", offset.getTimeLagMs());
+        json.put("consumerId", offset.getConsumerId());
+        json.put("timestamp", offset.getTimestamp());
+        return JSON.toJSONBytes(json);
+    }
+}
@@ -0,0 +1,193 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * In-process history of the lag of every group/topic/partition. Each partition keeps a fixed-size
+ * {@link LagSeries} of primitive samples, indexed by group, then topic, then partition number, so
+ * recording a sample and answering a query don't allocate. It answers questions like the consume rate
+ * over the last minutes or the time until a group is caught up.
+ */
+public class LagHistoryStore {
+
+    public static final int DEFAULT_CAPACITY = 360;
+
+    private static final LagSeries[] NONE = new LagSeries[0];
+
+    private final int capacity;
+
+    /**
+     * group -> topic -> series indexed by partition
+     */
+    private final Map<String, Map<String, LagSeries[]>> series = Maps.newHashMap();
+
+
+    public LagHistoryStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of samples kept for every partition
+     */
+    public LagHistoryStore(int capacity) {
+        this.capacity = capacity;
+    }
+
+
+    /**
+     * record every offset of a sweep, with the time it was collected.
+     *
+     * @param offsets
+     */
+    public synchronized void record(List<ConsumerOffset> offsets) {
+        for (ConsumerOffset offset : offsets) {
+            record(offset.getGroup(), offset.getTopic(), offset.getPartition(),
+                    offset.getTimestamp(), offset.getOffset(), offset.getLogEndOffset());
+        }
+    }
+
+
+    public synchronized void record(String group, String topic, int partition,
+                                    long timestamp, long committedOffset, long logEndOffset) {
+        Map<String, LagSeries[]> topics = series.get(group);
+        if (topics == null) {
+            topics = Maps.newHashMap();
+            series.put(group, topics);
+        }
+        LagSeries[] partitions = topics.get(topic);
+        if (partitions == null || partitions.length <= partition) {
+            partitions = partitions == null ? new LagSeries[partition + 1] : Arrays.copyOf(partitions, partition + 1);
+            topics.put(topic, partitions);
+        }
+        if (partitions[partition] == null) {
+            partitions[partition] = new LagSeries(capacity);
+        }
+        partitions[partition].add(timestamp, committedOffset, logEndOffset);
+    }
+
+
+    /**
+     * @return the latest lag, or -1 if the partition is unknown
+     */
+    public synchronized long lag(String group, String topic, int partition) {
+        LagSeries s = get(group, topic, partition);
+        return s == null ? -1L : s.lag();
+    }
+
+
+    /**
+     * @return the committed messages per second over the window
+     */
+    public synchronized double consumeRate(String group, String topic, int partition, long windowMs, long now) {
+        LagSeries s = get(group, topic, partition);
+        return s == null ? 0D : s.consumeRate(windowMs, now);
+    }
+
+
+    /**
+     * @return the produced messages per second over the window
+     */
+    public synchronized double produceRate(String group, String topic, int partition, long windowMs, long now) {
+        LagSeries s = get(group, topic, partition);
+        return s == null ? 0D : s.produceRate(windowMs, now);
+    }
+
+
+    /**
+     * @return how many messages per second the lag grew over the window, negative if it shrinks
+     */
+    public synchronized double lagGrowthRate(String group, String topic, int partition, long windowMs, long now) {
+        LagSeries s = get(group, topic, partition);
+        return s == null ? 0D : s.lagGrowthRate(windowMs, now);
+    }
+
+
+    /**
+     * estimate the time until the group is caught up on the partition, at the rates of the window.
+     *
+     * @return 0 if there is no lag, -1 if the partition is unknown or the lag is not shrinking
+     */
+    public synchronized long timeToCatchUpMs(String group, String topic, int partition, long windowMs, long now) {
+        LagSeries s = get(group, topic, partition);
+        if (s == null || s.size() == 0) {
+            return -1L;
+        }
+        long lag = s.lag();
+        if (lag == 0) {
+            return 0L;
+        }
+        double shrinking = -s.lagGrowthRate(windowMs, now);
+        if (shrinking <= 0) {
+            return -1L;
+        }
+        return (long) (lag * 1000D / shrinking);
+    }
+
+
+    /**
+     * the committed messages per second of a whole group on a topic, summed over its partitions.
+     */
+    public synchronized double consumeRate(String group, String topic, long windowMs, long now) {
+        double rate = 0D;
+        for (LagSeries s : partitions(group, topic)) {
+            if (s != null) {
+                rate += s.consumeRate(windowMs, now);
+            }
+        }
+        return rate;
+    }
+
+
+    /**
+     * the lag of a whole group on a topic, summed over its partitions.
+     */
+    public synchronized long lag(String group, String topic) {
+        long lag = 0L;
+        for (LagSeries s : partitions(group, topic)) {
+            if (s != null && s.size() > 0) {
+                lag += s.lag();
+            }
+        }
+        return lag;
+    }
+
+
+    /**
+     * @return the series of the partition, or null if it is unknown. The series must only be read
+     * while holding the lock of this store.
+     */
+    public synchronized LagSeries get(String group, String topic, int partition) {
+        LagSeries[] partitions = partitions(group, topic);
+        return partition < partitions.length ? partitions[partition] : null;
+    }
+
+
+    public synchronized void remove(String group) {
+        series.remove(group);
+    }
+
+    public synchronized void remove(String group, String topic) {
+        Map<String, LagSeries[]> topics = series.get(group);
+        if (topics != null) {
+            topics.remove(topic);
+        }
+    }
+
+
+    private LagSeries[] partitions(String group, String topic) {
+        Map<String, LagSeries[]> topics = series.get(group);
+        if (topics == null) {
+            return NONE;
+        }
+        LagSeries[] partitions = topics.get(topic);
+        return partitions == null ? NONE : partitions;
+    }
+}
@@ -0,0 +1,64 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * the identity of a lag record: group, topic and partition.
+ */
+public final class LagKey {
+
+    private final String group;
+
+    private final String topic;
+
+    private final int partition;
+
+    public LagKey(String group, String topic, int partition) {
+        this.group = group;
+        this.topic = topic;
+        this.partition = partition;
+    }
+
+    public static LagKey of(ConsumerOffset offset) {
+        return new LagKey(offset.getGroup(), offset.getTopic(), offset.getPartition());
+    }
+
+    public String group() {
+        return group;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public int partition() {
+        return partition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LagKey that = (LagKey) o;
+
+        if (partition != that.partition) return false;
+        if (!group.equals(that.group)) return false;
+        return topic.equals(that.topic);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = group.hashCode();
+        result = 31 * result + topic.hashCode();
+        result = 31 * result + partition;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return group + "/" + topic + "-" + partition;
+    }
+}
@@ -0,0 +1,214 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A lag threshold of a consumer group on a topic. The rule applies to one group, one topic, or both;
+ * a null group or topic matches any. The value of a (group, topic) is aggregated over its partitions:
+ * the offset lag and the lag growth rate are summed, the time lag is the max.
+ * <p>
+ * The rule is raised when the value reaches the raise threshold and is only cleared again when the
+ * value falls to the clear threshold, so a value hovering around a single threshold doesn't flap.
+ */
+public class LagRule {
+
+    public enum Metric {
+        /**
+         * messages not consumed yet
+         */
+        OFFSET_LAG,
+        /**
+         * milliseconds the committed offset is behind the head, see {@link TimeLagEstimator}
+         */
+        TIME_LAG_MS,
+        /**
+         * messages per second the lag grows over the window, see {@link LagHistoryStore}
+         */
+        LAG_GROWTH_RATE
+    }
+
+    public static final long DEFAULT_WINDOW_MS = 5 * 60 * 1000L;
+
+    private final String id;
+
+    private final String group;
+
+    private final String topic;
+
+    private final Metric metric;
+
+    private final double raiseThreshold;
+
+    private final double clearThreshold;
+
+    private final long windowMs;
+
+
+    private LagRule(String id, String group, String topic, Metric metric,
+                    double raiseThreshold, double clearThreshold, long windowMs) {
+        this.id = id;
+        this.group = group;
+        this.topic = topic;
+        this.metric = metric;
+        this.raiseThreshold = raiseThreshold;
+        this.clearThreshold = clearThreshold;
+        this.windowMs = windowMs;
+    }
+
+
+    /**
+     * @param id the unique id of the rule
+     * @return a builder of the rule
+     */
+    public static RuleBuilder define(String id) {
+        return new RuleBuilder(id);
+    }
+
+
+    public boolean matches(String group, String topic) {
+        return (this.group == null || this.group.equals(group))
+                && (this.topic == null || this.topic.equals(topic));
+    }
+
+    /**
+     * @return whether the value of the metric moves with time alone, without any offset changing
+     */
+    public boolean isTimeDependent() {
+        return metric != Metric.OFFSET_LAG;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String group() {
+        return group;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public Metric metric() {
+        return metric;
+    }
+
+    public double raiseThreshold() {
+        return raiseThreshold;
+    }
+
+    public double clearThreshold() {
+        return clearThreshold;
+    }
+
+    public long windowMs() {
+        return windowMs;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("group", group)
+                .add("topic", topic)
+                .add("metric", metric)
+                .add("raiseThreshold", raiseThreshold)
+                .add("clearThreshold", clearThreshold)
+                .add("windowMs", windowMs)
+                .toString();
+    }
+
+
+    /**
+     * A builder of {@link LagRule} instances.
+     */
+    public static class RuleBuilder {
+
+        private final String id;
+
+        private String group;
+
+        private String topic;
+
+        private Metric metric = Metric.OFFSET_LAG;
+
+        private double raiseThreshold = Double.NaN;
+
+        private double clearThreshold = Double.NaN;
+
+        private long windowMs = DEFAULT_WINDOW_MS;
+
+        public RuleBuilder(String id) {
+            this.id = id;
+        }
+
+        /**
+         * apply the rule to the given group only
+         */
+        public RuleBuilder group(String group) {
+            this.group = group;
+            return this;
+        }
+
+        /**
+         * apply the rule to the given topic only
+         */
+        public RuleBuilder topic(String topic) {
+            this.topic = topic;
+            return this;
+        }
+
+        public RuleBuilder metric(Metric metric) {
+            this.metric = metric;
+            return this;
+        }
+
+        /**
+         * @param threshold the value at which the rule is raised
+         */
+        public RuleBuilder raiseAt(double threshold) {
+            this.raiseThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param threshold the value at which a raised rule is cleared, defaults to the raise threshold
+         */
+        public RuleBuilder clearAt(double threshold) {
+            this.clearThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param windowMs the window of the lag growth rate
+         */
+        public RuleBuilder windowMs(long windowMs) {
+            this.windowMs = windowMs;
+            return this;
+        }
+
+        public LagRule build() {
+            if (id == null) {
+                throw new IllegalArgumentException("The id of a lag rule must not be null");
+            }
+            if (metric == null) {
+                throw new IllegalArgumentException("The metric of lag rule " + id + " must not be null");
+            }
+            if (Double.isNaN(raiseThreshold)) {
+                throw new IllegalArgumentException("The raise threshold of lag rule " + id + " is not set");
+            }
+            double clear = Double.isNaN(clearThreshold) ? raiseThreshold : clearThreshold;
+            if (clear > raiseThreshold) {
+                throw new IllegalArgumentException("The clear threshold of lag rule " + id
+                        + " must not be greater than the raise threshold, but was " + clear + " > " + raiseThreshold);
+            }
+            if (windowMs <= 0) {
+                throw new IllegalArgumentException("The window of lag rule " + id + " must be positive, but was " + windowMs);
+            }
+            return new LagRule(id, group, topic, metric, raiseThreshold, clear, windowMs);
+        }
+    }
+}
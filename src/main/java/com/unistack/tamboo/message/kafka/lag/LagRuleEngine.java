@@ -0,0 +1,406 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Evaluate {@link LagRule}s against every new {@link LagSnapshot} and publish the state changes only.
+ * The evaluation is incremental:
+ * <ul>
+ * <li>the lag of every (group, topic) is kept up to date from {@link LagSnapshot#changes()} and
+ * {@link LagSnapshot#removed()}, and only the (group, topic)s which changed are evaluated;</li>
+ * <li>the time lag and the lag growth rate move with the clock alone, so the rules on them are
+ * evaluated for every lagging (group, topic) as well;</li>
+ * <li>the rules are indexed by group and topic, only the matching rules are evaluated.</li>
+ * </ul>
+ * Register the engine as a listener of a {@link LagSnapshotCache} to evaluate every refresh.
+ */
+public class LagRuleEngine implements Callback<LagSnapshot> {
+
+    public static final Logger log = LoggerFactory.getLogger(LagRuleEngine.class);
+
+    private final LagHistoryStore history;
+
+    private final Map<String, LagRule> rules = Maps.newHashMap();
+
+    private final Map<String, List<LagRule>> rulesByGroup = Maps.newHashMap();
+
+    private final Map<String, List<LagRule>> rulesByTopic = Maps.newHashMap();
+
+    private final List<LagRule> globalRules = Lists.newArrayList();
+
+    /**
+     * rules added since the last evaluation, evaluated once against every (group, topic)
+     */
+    private final List<LagRule> pendingRules = Lists.newArrayList();
+
+    private final Map<GroupTopic, Subject> subjects = Maps.newHashMap();
+
+    /**
+     * the (group, topic)s with a positive lag
+     */
+    private final Set<GroupTopic> lagging = Sets.newHashSet();
+
+    private final List<Callback<LagEvent>> listeners = new CopyOnWriteArrayList<>();
+
+
+    public LagRuleEngine() {
+        this(null);
+    }
+
+    /**
+     * @param history the history of the lag growth rate rules, every snapshot is recorded into it;
+     *                null if there is no such rule
+     */
+    public LagRuleEngine(LagHistoryStore history) {
+        this.history = history;
+    }
+
+
+    /**
+     * add a rule, or replace the rule with the same id. A replaced rule starts cleared.
+     *
+     * @param rule
+     */
+    public synchronized void addRule(LagRule rule) {
+        if (rule.metric() == LagRule.Metric.LAG_GROWTH_RATE && history == null) {
+            throw new IllegalArgumentException("Lag rule " + rule.id() + " needs a lag history store");
+        }
+        removeRule(rule.id());
+        rules.put(rule.id(), rule);
+        if (rule.group() != null) {
+            rulesByGroup.computeIfAbsent(rule.group(), g -> Lists.newArrayList()).add(rule);
+        } else if (rule.topic() != null) {
+            rulesByTopic.computeIfAbsent(rule.topic(), t -> Lists.newArrayList()).add(rule);
+        } else {
+            globalRules.add(rule);
+        }
+        pendingRules.add(rule);
+    }
+
+
+    /**
+     * remove a rule, no event is published for the (group, topic)s it is raised on.
+     *
+     * @param id
+     * @return the removed rule, or null if there was no such rule
+     */
+    public synchronized LagRule removeRule(String id) {
+        LagRule rule = rules.remove(id);
+        if (rule == null) {
+            return null;
+        }
+        if (rule.group() != null) {
+            unindex(rulesByGroup, rule.group(), rule);
+        } else if (rule.topic() != null) {
+            unindex(rulesByTopic, rule.topic(), rule);
+        } else {
+            globalRules.remove(rule);
+        }
+        pendingRules.remove(rule);
+        for (Subject subject : subjects.values()) {
+            subject.raised.remove(id);
+        }
+        return rule;
+    }
+
+
+    @Override
+    public void onCompletion(Throwable error, LagSnapshot snapshot) {
+        if (error != null) {
+            return;
+        }
+        for (LagEvent event : evaluate(snapshot)) {
+            for (Callback<LagEvent> listener : listeners) {
+                try {
+                    listener.onCompletion(null, event);
+                } catch (Exception e) {
+                    log.error("Lag event listener failed on {}", event, e);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * evaluate the rules against a new snapshot, the snapshots must be evaluated in order.
+     *
+     * @param snapshot
+     * @return the state changes
+     */
+    public synchronized List<LagEvent> evaluate(LagSnapshot snapshot) {
+        long now = snapshot.timestamp();
+        if (history != null) {
+            history.record(snapshot.offsets());
+        }
+
+        Set<GroupTopic> changed = Sets.newHashSet();
+        for (ConsumerOffset offset : snapshot.changes()) {
+            GroupTopic key = new GroupTopic(offset.getGroup(), offset.getTopic());
+            Subject subject = subjects.get(key);
+            if (subject == null) {
+                subject = new Subject(key);
+                subjects.put(key, subject);
+            }
+            subject.put(offset);
+            changed.add(key);
+        }
+        for (LagKey removed : snapshot.removed()) {
+            GroupTopic key = new GroupTopic(removed.group(), removed.topic());
+            Subject subject = subjects.get(key);
+            if (subject != null) {
+                subject.remove(removed.partition());
+                changed.add(key);
+            }
+        }
+
+        List<LagEvent> events = Lists.newArrayList();
+        for (GroupTopic key : changed) {
+            Subject subject = subjects.get(key);
+            if (subject.partitions.isEmpty()) {
+                clearAll(subject, now, events);
+                subjects.remove(key);
+                lagging.remove(key);
+                continue;
+            }
+            if (subject.lag > 0) {
+                lagging.add(key);
+            } else {
+                lagging.remove(key);
+            }
+            List<LagRule> matched = matching(key);
+            for (LagRule rule : matched) {
+                if (rule.isTimeDependent()) {
+                    subject.refresh(snapshot);
+                    break;
+                }
+            }
+            for (LagRule rule : matched) {
+                evaluate(rule, subject, now, events);
+            }
+        }
+        for (GroupTopic key : lagging) {
+            if (changed.contains(key)) {
+                continue;
+            }
+            Subject subject = subjects.get(key);
+            boolean refreshed = false;
+            for (LagRule rule : matching(key)) {
+                if (rule.isTimeDependent()) {
+                    if (!refreshed) {
+                        subject.refresh(snapshot);
+                        refreshed = true;
+                    }
+                    evaluate(rule, subject, now, events);
+                }
+            }
+        }
+        for (LagRule rule : pendingRules) {
+            for (Subject subject : subjects.values()) {
+                if (rule.matches(subject.key.group, subject.key.topic) && !changed.contains(subject.key)
+                        && !(rule.isTimeDependent() && lagging.contains(subject.key))) {
+                    subject.refresh(snapshot);
+                    evaluate(rule, subject, now, events);
+                }
+            }
+        }
+        pendingRules.clear();
+        return events;
+    }
+
+
+    /**
+     * @param group
+     * @param topic
+     * @return the ids of the rules raised on the (group, topic)
+     */
+    public synchronized Set<String> raised(String group, String topic) {
+        Subject subject = subjects.get(new GroupTopic(group, topic));
+        return subject == null ? Collections.<String>emptySet() : Sets.newHashSet(subject.raised);
+    }
+
+
+    public void addListener(Callback<LagEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Callback<LagEvent> listener) {
+        listeners.remove(listener);
+    }
+
+
+    private void evaluate(LagRule rule, Subject subject, long now, List<LagEvent> events) {
+        double value = value(rule, subject, now);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        boolean raised = subject.raised.contains(rule.id());
+        if (!raised && value >= rule.raiseThreshold()) {
+            subject.raised.add(rule.id());
+            events.add(new LagEvent(rule, subject.key.group, subject.key.topic, LagEvent.State.RAISED, value, now));
+        } else if (raised && value <= rule.clearThreshold()) {
+            subject.raised.remove(rule.id());
+            events.add(new LagEvent(rule, subject.key.group, subject.key.topic, LagEvent.State.CLEARED, value, now));
+        }
+    }
+
+
+    /**
+     * @return the value of the metric of the rule, NaN if it is unknown
+     */
+    private double value(LagRule rule, Subject subject, long now) {
+        switch (rule.metric()) {
+            case OFFSET_LAG:
+                return subject.lag;
+            case TIME_LAG_MS:
+                long max = -1L;
+                for (ConsumerOffset offset : subject.partitions.values()) {
+                    max = Math.max(max, offset.getTimeLagMs());
+                }
+                return max < 0 ? Double.NaN : max;
+            case LAG_GROWTH_RATE:
+                double rate = 0D;
+                for (Integer partition : subject.partitions.keySet()) {
+                    rate += history.lagGrowthRate(subject.key.group, subject.key.topic, partition, rule.windowMs(), now);
+                }
+                return rate;
+            default:
+                return Double.NaN;
+        }
+    }
+
+
+    /**
+     * the (group, topic) is gone, clear the rules raised on it.
+     */
+    private void clearAll(Subject subject, long now, List<LagEvent> events) {
+        for (String id : subject.raised) {
+            events.add(new LagEvent(rules.get(id), subject.key.group, subject.key.topic, LagEvent.State.CLEARED, 0D, now));
+        }
+        subject.raised.clear();
+    }
+
+
+    private List<LagRule> matching(GroupTopic key) {
+        List<LagRule> matched = Lists.newArrayList(globalRules);
+        List<LagRule> byGroup = rulesByGroup.get(key.group);
+        if (byGroup != null) {
+            for (LagRule rule : byGroup) {
+                if (rule.matches(key.group, key.topic)) {
+                    matched.add(rule);
+                }
+            }
+        }
+        List<LagRule> byTopic = rulesByTopic.get(key.topic);
+        if (byTopic != null) {
+            matched.addAll(byTopic);
+        }
+        return matched;
+    }
+
+
+    private static void unindex(Map<String, List<LagRule>> index, String key, LagRule rule) {
+        List<LagRule> list = index.get(key);
+        if (list != null) {
+            list.remove(rule);
+            if (list.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+
+    private static final class GroupTopic {
+
+        private final String group;
+
+        private final String topic;
+
+        GroupTopic(String group, String topic) {
+            this.group = group;
+            this.topic = topic;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupTopic)) {
+                return false;
+            }
+            GroupTopic that = (GroupTopic) o;
+            return Objects.equals(group, that.group) && Objects.equals(topic, that.topic);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, topic);
+        }
+    }
+
+
+    /**
+     * the partitions of a (group, topic), its lag and the rules raised on it.
+     */
+    private static final class Subject {
+
+        private final GroupTopic key;
+
+        private final Map<Integer, ConsumerOffset> partitions = Maps.newHashMap();
+
+        private final Set<String> raised = Sets.newHashSet();
+
+        private long lag = 0L;
+
+        Subject(GroupTopic key) {
+            this.key = key;
+        }
+
+        void put(ConsumerOffset offset) {
+            ConsumerOffset previous = partitions.put(offset.getPartition(), offset);
+            if (previous != null) {
+                lag -= lagOf(previous);
+            }
+            lag += lagOf(offset);
+        }
+
+        /**
+         * take the time lag of the partitions which didn't change from the snapshot, the offsets are the same.
+         */
+        void refresh(LagSnapshot snapshot) {
+            for (Map.Entry<Integer, ConsumerOffset> entry : partitions.entrySet()) {
+                ConsumerOffset current = snapshot.get(new LagKey(key.group, key.topic, entry.getKey()));
+                if (current != null) {
+                    entry.setValue(current);
+                }
+            }
+        }
+
+        void remove(int partition) {
+            ConsumerOffset previous = partitions.remove(partition);
+            if (previous != null) {
+                lag -= lagOf(previous);
+            }
+        }
+
+        private static long lagOf(ConsumerOffset offset) {
+            return Math.max(0L, offset.getLogEndOffset() - offset.getOffset());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A fixed-size ring buffer of lag samples of a single group/topic/partition, stored column by column
+ * in primitive arrays: timestamp, committed offset and log-end offset. Adding a sample and querying
+ * the buffer never allocates. Not thread safe.
+ */
+public class LagSeries {
+
+    private final long[] timestamps;
+
+    private final long[] committedOffsets;
+
+    private final long[] logEndOffsets;
+
+    /**
+     * the slot the next sample is written to
+     */
+    private int next = 0;
+
+    private int size = 0;
+
+
+    public LagSeries(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2, but was " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.committedOffsets = new long[capacity];
+        this.logEndOffsets = new long[capacity];
+    }
+
+
+    /**
+     * append a sample, the oldest one is overwritten when the buffer is full. Samples which are not
+     * newer than the latest one are ignored.
+     *
+     * @param timestamp
+     * @param committedOffset
+     * @param logEndOffset
+     */
+    public void add(long timestamp, long committedOffset, long logEndOffset) {
+        if (size > 0 && timestamp <= timestampAt(size - 1)) {
+            return;
+        }
+        timestamps[next] = timestamp;
+        committedOffsets[next] = committedOffset;
+        logEndOffsets[next] = logEndOffset;
+        next = (next + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+
+    /**
+     * @param i 0 is the oldest sample, size() - 1 is the latest one
+     * @return
+     */
+    public long timestampAt(int i) {
+        return timestamps[slot(i)];
+    }
+
+    public long committedOffsetAt(int i) {
+        return committedOffsets[slot(i)];
+    }
+
+    public long logEndOffsetAt(int i) {
+        return logEndOffsets[slot(i)];
+    }
+
+    public long lagAt(int i) {
+        int slot = slot(i);
+        return Math.max(0L, logEndOffsets[slot] - committedOffsets[slot]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+
+    /**
+     * @return the latest lag, or -1 if there is no sample
+     */
+    public long lag() {
+        return size == 0 ? -1L : lagAt(size - 1);
+    }
+
+
+    /**
+     * @param since
+     * @return the index of the oldest sample at or after the timestamp, or size() if there is none
+     */
+    public int indexOf(long since) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) < since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+
+    /**
+     * @param windowMs
+     * @param now
+     * @return the committed messages per second in the window, 0 if there are not enough samples
+     */
+    public double consumeRate(long windowMs, long now) {
+        return rate(committedOffsets, windowMs, now);
+    }
+
+    /**
+     * @param windowMs
+     * @param now
+     * @return the produced messages per second in the window, 0 if there are not enough samples
+     */
+    public double produceRate(long windowMs, long now) {
+        return rate(logEndOffsets, windowMs, now);
+    }
+
+
+    /**
+     * @param windowMs
+     * @param now
+     * @return how many messages per second the lag grows in the window, negative if it shrinks
+     */
+    public double lagGrowthRate(long windowMs, long now) {
+        return produceRate(windowMs, now) - consumeRate(windowMs, now);
+    }
+
+
+    private double rate(long[] column, long windowMs, long now) {
+        if (size < 2) {
+            return 0D;
+        }
+        int first = Math.min(indexOf(now - windowMs), size - 2);
+        int last = size - 1;
+        long elapsed = timestampAt(last) - timestampAt(first);
+        if (elapsed <= 0) {
+            return 0D;
+        }
+        return (column[slot(last)] - column[slot(first)]) * 1000D / elapsed;
+    }
+
+
+    private int slot(int i) {
+        int oldest = size < timestamps.length ? 0 : next;
+        return (oldest + i) % timestamps.length;
+    }
+}
@@ -0,0 +1,103 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * An immutable view of the lag of all consumer groups at a point in time, together with the
+ * partitions whose committed offset or log-end offset changed since the previous snapshot.
+ */
+public class LagSnapshot {
+
+    private final long timestamp;
+
+    private final List<ConsumerOffset> offsets;
+
+    private final Map<LagKey, ConsumerOffset> offsetsByKey;
+
+    private final List<ConsumerOffset> changes;
+
+    private final Set<LagKey> removed;
+
+    /**
+     * @param timestamp the time the offsets were collected
+     * @param offsets   all of the collected offsets
+     * @param previous  the previous snapshot to compute the changes against, null if this is the first one
+     */
+    public LagSnapshot(long timestamp, List<ConsumerOffset> offsets, LagSnapshot previous) {
+        this.timestamp = timestamp;
+        this.offsets = Collections.unmodifiableList(offsets);
+
+        Map<LagKey, ConsumerOffset> byKey = Maps.newHashMapWithExpectedSize(offsets.size());
+        List<ConsumerOffset> changed = Lists.newArrayList();
+        for (ConsumerOffset offset : offsets) {
+            LagKey key = LagKey.of(offset);
+            byKey.put(key, offset);
+            ConsumerOffset last = previous == null ? null : previous.offsetsByKey.get(key);
+            if (last == null || last.getOffset() != offset.getOffset()
+                    || last.getLogEndOffset() != offset.getLogEndOffset()) {
+                changed.add(offset);
+            }
+        }
+        this.offsetsByKey = Collections.unmodifiableMap(byKey);
+        this.changes = Collections.unmodifiableList(changed);
+
+        if (previous == null) {
+            this.removed = Collections.emptySet();
+        } else {
+            Set<LagKey> gone = Sets.newHashSet(previous.offsetsByKey.keySet());
+            gone.removeAll(byKey.keySet());
+            this.removed = Collections.unmodifiableSet(gone);
+        }
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return all of the offsets of this snapshot
+     */
+    public List<ConsumerOffset> offsets() {
+        return offsets;
+    }
+
+    /**
+     * @return the offsets whose committed offset or log-end offset changed since the previous snapshot
+     */
+    public List<ConsumerOffset> changes() {
+        return changes;
+    }
+
+    /**
+     * @return the partitions which were in the previous snapshot but are gone in this one
+     */
+    public Set<LagKey> removed() {
+        return removed;
+    }
+
+    public ConsumerOffset get(LagKey key) {
+        return offsetsByKey.get(key);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestamp", timestamp)
+                .add("offsets", offsets.size())
+                .add("changes", changes.size())
+                .add("removed", removed.size())
+                .toString();
+    }
+}
@@ -0,0 +1,198 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import com.unistack.tamboo.message.kafka.storage.OffsetBackingStore;
+import com.unistack.tamboo.message.kafka.util.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A long-lived cache of the lag of all consumer groups. Reads are served from memory, the
+ * snapshot is refreshed in the background every ttl, and listeners only see the partitions
+ * which changed since the previous snapshot. This keeps the broker load constant no matter
+ * how many clients are polling.
+ */
+public class LagSnapshotCache implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(LagSnapshotCache.class);
+
+    /**
+     * while refreshing in the background, a snapshot older than this many ttls is refreshed by the
+     * reader, so that failing background refreshes are not hidden behind an old snapshot
+     */
+    public static final int MAX_STALE_TTLS = 3;
+
+    private final OffsetBackingStore store;
+
+    private final long ttlMs;
+
+    private final Time time;
+
+    private final List<Callback<LagSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile LagSnapshot snapshot;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    private boolean closed = false;
+
+
+    public LagSnapshotCache(OffsetBackingStore store, long ttlMs) {
+        this(store, ttlMs, Time.SYSTEM);
+    }
+
+    /**
+     * @param store the store to collect the offsets from, it is closed together with this cache
+     * @param ttlMs how long a snapshot stays fresh; must be positive
+     * @param time
+     */
+    public LagSnapshotCache(OffsetBackingStore store, long ttlMs, Time time) {
+        if (ttlMs <= 0) {
+            throw new IllegalArgumentException("ttlMs must be positive, but was " + ttlMs);
+        }
+        this.store = store;
+        this.ttlMs = ttlMs;
+        this.time = time;
+    }
+
+
+    /**
+     * Start refreshing the snapshot in the background every ttl.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("lag-snapshot-refresher-%d")
+                .setDaemon(true)
+                .build());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Throwable t) {
+                log.error("Failed to refresh the lag snapshot", t);
+            }
+        }, 0, ttlMs, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Get the latest snapshot. If there is no snapshot yet, or the snapshot is older than the ttl while
+     * the cache is not refreshing in the background, or older than {@link #MAX_STALE_TTLS} ttls while it
+     * is, it is refreshed in the calling thread; concurrent readers wait for that refresh instead of
+     * running their own.
+     *
+     * @return
+     * @throws RuntimeException if the snapshot is too old and refreshing it failed
+     */
+    public LagSnapshot get() {
+        long maxAgeMs = scheduler == null ? ttlMs : ttlMs * MAX_STALE_TTLS;
+        LagSnapshot current = snapshot;
+        if (current != null && time.milliseconds() - current.timestamp() <= maxAgeMs) {
+            return current;
+        }
+        return refreshIfOlderThan(maxAgeMs);
+    }
+
+
+    private synchronized LagSnapshot refreshIfOlderThan(long maxAgeMs) {
+        LagSnapshot current = snapshot;
+        if (current != null) {
+            long ageMs = time.milliseconds() - current.timestamp();
+            if (ageMs <= maxAgeMs) {
+                // refreshed by another reader while this one was waiting
+                return current;
+            }
+            if (scheduler != null) {
+                log.warn("The lag snapshot is {} ms old, refresh it in the calling thread", ageMs);
+            }
+        }
+        return refresh();
+    }
+
+
+    /**
+     * Collect the offsets from the store right now and publish the changes to the listeners.
+     *
+     * @return the new snapshot
+     */
+    public synchronized LagSnapshot refresh() {
+        if (closed) {
+            throw new ConnectException("The lag snapshot cache is closed");
+        }
+        long now = time.milliseconds();
+        LagSnapshot current = new LagSnapshot(now, Lists.newArrayList(store.getConsumerGroups()), snapshot);
+        snapshot = current;
+        log.debug("Refreshed lag snapshot {}", current);
+
+        for (Callback<LagSnapshot> listener : listeners) {
+            try {
+                listener.onCompletion(null, current);
+            } catch (Exception e) {
+                log.error("Lag snapshot listener failed", e);
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Register a listener which is invoked with every new snapshot, use {@link LagSnapshot#changes()}
+     * to only process the partitions which changed.
+     *
+     * @param listener
+     */
+    public void addListener(Callback<LagSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Callback<LagSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    public long ttlMs() {
+        return ttlMs;
+    }
+
+
+    /**
+     * Stop the background refresh and close the store, once the refresh in flight, if any, is done.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdownNow();
+            try {
+                current.awaitTermination(ttlMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // the lock of refresh(): a sweep running on the scheduler or on a reader still uses the store
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            store.close();
+        }
+    }
+}
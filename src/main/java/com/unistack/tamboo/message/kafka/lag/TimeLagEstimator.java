@@ -0,0 +1,249 @@
+package com.unistack.tamboo.message.kafka.lag;
+
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffsetTable;
+import com.unistack.tamboo.message.kafka.util.OffsetTimeIndex;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Estimate how far behind the head a committed offset is in time. Every partition has a sparse
+ * {@link OffsetTimeIndex} which is fed from two sources:
+ * <ul>
+ * <li>the log-end offsets seen by every sweep: every record before the log-end offset was written
+ * before the sweep, which costs nothing;</li>
+ * <li>{@code offsetsForTimes} probes for the partitions whose committed offset is older than the
+ * oldest sample. Every call probes once, with one batched request, and goes twice as far back as
+ * the partition is already covered, so the index grows incrementally.</li>
+ * </ul>
+ * The timestamp of a committed offset is then interpolated from the samples around it. Both the number
+ * of samples per partition and the number of partitions are bounded, the least recently used partition
+ * is dropped first.
+ */
+public class TimeLagEstimator {
+
+    public static final Logger log = LoggerFactory.getLogger(TimeLagEstimator.class);
+
+    public static final int DEFAULT_SAMPLES_PER_PARTITION = 32;
+
+    public static final int DEFAULT_MAX_PARTITIONS = 100000;
+
+    /**
+     * how far back the first probe of a partition goes
+     */
+    public static final long MIN_PROBE_WINDOW_MS = 60 * 1000L;
+
+    private final int samplesPerPartition;
+
+    private final Map<TopicPartition, OffsetTimeIndex> indexes;
+
+
+    public TimeLagEstimator() {
+        this(DEFAULT_SAMPLES_PER_PARTITION, DEFAULT_MAX_PARTITIONS);
+    }
+
+    /**
+     * @param samplesPerPartition the max number of samples kept for a partition
+     * @param maxPartitions       the max number of partitions kept in memory
+     */
+    public TimeLagEstimator(int samplesPerPartition, final int maxPartitions) {
+        this.samplesPerPartition = samplesPerPartition;
+        this.indexes = new LinkedHashMap<TopicPartition, OffsetTimeIndex>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TopicPartition, OffsetTimeIndex> eldest) {
+                return size() > maxPartitions;
+            }
+        };
+    }
+
+
+    /**
+     * observe the offsets of a sweep, probe the partitions which are not covered yet, and fill the
+     * time lag of every offset.
+     *
+     * @param consumer the consumer used to probe the partitions
+     * @param offsets
+     * @param now
+     */
+    public synchronized void update(Consumer<?, ?> consumer, List<ConsumerOffset> offsets, long now) {
+        observe(offsets);
+        probe(consumer, offsets, now);
+        estimate(offsets, now);
+    }
+
+
+    /**
+     * record the log-end offset of every partition at the time it was collected.
+     *
+     * @param offsets
+     */
+    public synchronized void observe(List<ConsumerOffset> offsets) {
+        for (ConsumerOffset offset : offsets) {
+            observe(new TopicPartition(offset.getTopic(), offset.getPartition()),
+                    offset.getLogStartOffset(), offset.getLogEndOffset(), offset.getTimestamp());
+        }
+    }
+
+
+    /**
+     * @param tp
+     * @param logStartOffset
+     * @param logEndOffset
+     * @param timestamp      the time the log-end offset was seen
+     */
+    public synchronized void observe(TopicPartition tp, long logStartOffset, long logEndOffset, long timestamp) {
+        OffsetTimeIndex index = index(tp);
+        index.truncateBefore(logStartOffset);
+        index.add(logEndOffset, timestamp);
+    }
+
+
+    /**
+     * probe, with a single {@code offsetsForTimes} request, the partitions whose committed offset is
+     * older than their oldest sample.
+     *
+     * @param consumer
+     * @param offsets
+     * @param now
+     */
+    public synchronized void probe(Consumer<?, ?> consumer, List<ConsumerOffset> offsets, long now) {
+        Map<TopicPartition, Long> targets = Maps.newHashMap();
+        Map<TopicPartition, Long> logEndOffsets = Maps.newHashMap();
+        for (ConsumerOffset offset : offsets) {
+            addProbeTarget(new TopicPartition(offset.getTopic(), offset.getPartition()),
+                    offset.getOffset(), offset.getLogEndOffset(), now, targets, logEndOffsets);
+        }
+        probe(consumer, targets, logEndOffsets);
+    }
+
+
+    /**
+     * the same as {@link #update(Consumer, List, long)} for the columnar representation.
+     *
+     * @param consumer
+     * @param table
+     * @param now
+     */
+    public synchronized void update(Consumer<?, ?> consumer, ConsumerOffsetTable table, long now) {
+        TopicPartition[] partitions = new TopicPartition[table.size()];
+        for (int row = 0; row < table.size(); row++) {
+            partitions[row] = new TopicPartition(table.topic(row), table.partition(row));
+            observe(partitions[row], table.logStartOffset(row), table.logEndOffset(row), table.timestamp());
+        }
+
+        Map<TopicPartition, Long> targets = Maps.newHashMap();
+        Map<TopicPartition, Long> logEndOffsets = Maps.newHashMap();
+        for (int row = 0; row < table.size(); row++) {
+            addProbeTarget(partitions[row], table.offset(row), table.logEndOffset(row), now, targets, logEndOffsets);
+        }
+        probe(consumer, targets, logEndOffsets);
+
+        for (int row = 0; row < table.size(); row++) {
+            table.setTimeLagMs(row, estimate(partitions[row], table.offset(row), table.logEndOffset(row), now));
+        }
+    }
+
+
+    private void addProbeTarget(TopicPartition tp, long committedOffset, long logEndOffset, long now,
+                                Map<TopicPartition, Long> targets, Map<TopicPartition, Long> logEndOffsets) {
+        if (committedOffset >= logEndOffset) {
+            return;
+        }
+        OffsetTimeIndex index = index(tp);
+        if (!index.isEmpty() && index.offsetAt(0) <= committedOffset) {
+            return;
+        }
+        long target = now - MIN_PROBE_WINDOW_MS;
+        if (!index.isEmpty()) {
+            long oldest = index.timestampAt(0);
+            target = oldest - Math.max(now - oldest, MIN_PROBE_WINDOW_MS);
+        }
+        Long current = targets.get(tp);
+        targets.put(tp, current == null ? target : Math.min(current, target));
+        logEndOffsets.put(tp, logEndOffset);
+    }
+
+
+    private void probe(Consumer<?, ?> consumer, Map<TopicPartition, Long> targets, Map<TopicPartition, Long> logEndOffsets) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndTimestamp> result;
+        try {
+            result = consumer.offsetsForTimes(targets);
+        } catch (Exception e) {
+            log.warn("Failed to probe the offsets of {} partitions by timestamp", targets.size(), e);
+            return;
+        }
+        for (Map.Entry<TopicPartition, Long> entry : targets.entrySet()) {
+            TopicPartition tp = entry.getKey();
+            OffsetAndTimestamp found = result.get(tp);
+            if (found != null) {
+                index(tp).add(found.offset(), found.timestamp());
+            } else {
+                // no record at or after the target, every record was written before it
+                index(tp).add(logEndOffsets.get(tp), entry.getValue());
+            }
+        }
+    }
+
+
+    /**
+     * fill the time lag of every offset, -1 if it can't be estimated yet.
+     *
+     * @param offsets
+     * @param now
+     */
+    public synchronized void estimate(List<ConsumerOffset> offsets, long now) {
+        for (ConsumerOffset offset : offsets) {
+            offset.setTimeLagMs(estimate(new TopicPartition(offset.getTopic(), offset.getPartition()),
+                    offset.getOffset(), offset.getLogEndOffset(), now));
+        }
+    }
+
+
+    /**
+     * @param tp
+     * @param committedOffset
+     * @param logEndOffset
+     * @param now
+     * @return the milliseconds the committed offset is behind the head, -1 if unknown
+     */
+    public synchronized long estimate(TopicPartition tp, long committedOffset, long logEndOffset, long now) {
+        if (committedOffset >= logEndOffset) {
+            return 0L;
+        }
+        OffsetTimeIndex index = indexes.get(tp);
+        if (index == null) {
+            return -1L;
+        }
+        long timestamp = index.timestampOf(committedOffset);
+        return timestamp < 0 ? -1L : Math.max(0L, now - timestamp);
+    }
+
+
+    public synchronized int size() {
+        return indexes.size();
+    }
+
+
+    private OffsetTimeIndex index(TopicPartition tp) {
+        OffsetTimeIndex index = indexes.get(tp);
+        if (index == null) {
+            index = new OffsetTimeIndex(samplesPerPartition);
+            indexes.put(tp, index);
+        }
+        return index;
+    }
+}
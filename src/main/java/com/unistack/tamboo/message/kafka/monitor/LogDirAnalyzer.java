@@ -0,0 +1,494 @@
+package com.unistack.tamboo.message.kafka.monitor;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.util.TopicAdmin;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Disk usage rollups of the log dirs of a cluster, by topic, partition, broker and log dir, with the skew
+ * of the replica sizes and the largest partitions. Every poll of {@link TopicAdmin#describeLogDir(List)}
+ * is diffed with the previous one and only the changed replicas update the rollups and the rankings,
+ * so that analyzing large clusters every minute stays cheap. The brokers missing from a poll keep their
+ * previous values until {@link #forgetBroker(int)}; the replicas of an offline log dir are dropped.
+ * The future replicas, moving between the log dirs of a broker, are not counted.
+ */
+public class LogDirAnalyzer {
+
+    public static final Logger logger = LoggerFactory.getLogger(LogDirAnalyzer.class);
+
+    private static final Comparator<PartitionUsage> BY_SIZE = Comparator
+            .comparingLong(PartitionUsage::getSize).reversed()
+            .thenComparing(usage -> usage.getPartition().topic())
+            .thenComparingInt(usage -> usage.getPartition().partition());
+
+    private static final Comparator<PartitionUsage> BY_SKEW = Comparator
+            .comparingDouble(PartitionUsage::getSkew).reversed()
+            .thenComparing(BY_SIZE);
+
+    /**
+     * broker -> log dir -> partition -> the size of the replica, as of the last poll
+     */
+    private final Map<Integer, Map<String, Map<TopicPartition, Long>>> replicas = Maps.newHashMap();
+
+    private final Map<Integer, Long> brokerBytes = Maps.newHashMap();
+
+    private final Map<Integer, Map<String, Long>> logDirBytes = Maps.newHashMap();
+
+    private final Map<String, Long> topicBytes = Maps.newHashMap();
+
+    /**
+     * topic -> the number of replicas, to drop the deleted topics
+     */
+    private final Map<String, Integer> topicReplicas = Maps.newHashMap();
+
+    /**
+     * partition -> broker:log dir -> the size of the replica, keyed by the log dir as well so that a
+     * replica moved between the log dirs of a broker is counted once
+     */
+    private final Map<TopicPartition, Map<String, Long>> partitionReplicas = Maps.newHashMap();
+
+    private final Map<TopicPartition, PartitionUsage> partitions = Maps.newHashMap();
+
+    private final TreeSet<PartitionUsage> bySize = new TreeSet<>(BY_SIZE);
+
+    private final TreeSet<PartitionUsage> bySkew = new TreeSet<>(BY_SKEW);
+
+    private final Set<String> offlineLogDirs = Sets.newTreeSet();
+
+    private long lastPollMs = -1L;
+
+
+    /**
+     * describe the log dirs of all the brokers and update the rollups.
+     *
+     * @param admin
+     * @return what changed since the previous poll
+     */
+    public Delta poll(TopicAdmin admin) {
+        return update(admin.describeLogDir(admin.listBrokerIds(true)), System.currentTimeMillis());
+    }
+
+
+    /**
+     * @param logDirs broker -> log dir -> the replicas, as returned by {@link TopicAdmin#describeLogDir(List)}
+     * @param nowMs
+     * @return what changed since the previous update
+     */
+    public synchronized Delta update(Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> logDirs, long nowMs) {
+        Delta delta = new Delta(lastPollMs < 0 ? 0L : nowMs - lastPollMs);
+        Set<TopicPartition> changed = Sets.newHashSet();
+
+        for (Map.Entry<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> broker : logDirs.entrySet()) {
+            int brokerId = broker.getKey();
+            Map<String, Map<TopicPartition, Long>> dirs = replicas.computeIfAbsent(brokerId, b -> Maps.newHashMap());
+            Set<String> onlineDirs = Sets.newHashSet();
+            for (Map.Entry<String, DescribeLogDirsResponse.LogDirInfo> dir : broker.getValue().entrySet()) {
+                String offlineKey = brokerId + ":" + dir.getKey();
+                if (dir.getValue().error != Errors.NONE) {
+                    if (offlineLogDirs.add(offlineKey)) {
+                        logger.warn("Log dir {} of broker {} is offline: {}", dir.getKey(), brokerId, dir.getValue().error);
+                    }
+                    continue;
+                }
+                offlineLogDirs.remove(offlineKey);
+                onlineDirs.add(dir.getKey());
+                Map<TopicPartition, Long> previous = dirs.computeIfAbsent(dir.getKey(), d -> Maps.newHashMap());
+                Set<TopicPartition> seen = Sets.newHashSetWithExpectedSize(dir.getValue().replicaInfos.size());
+                for (Map.Entry<TopicPartition, DescribeLogDirsResponse.ReplicaInfo> replica
+                        : dir.getValue().replicaInfos.entrySet()) {
+                    if (replica.getValue().isFuture) {
+                        continue;
+                    }
+                    TopicPartition tp = replica.getKey();
+                    long size = replica.getValue().size;
+                    seen.add(tp);
+                    Long old = previous.put(tp, size);
+                    if (old == null) {
+                        apply(brokerId, dir.getKey(), tp, size, size, delta);
+                        topicReplicas.merge(tp.topic(), 1, Integer::sum);
+                        delta.addedReplicas++;
+                        changed.add(tp);
+                    } else if (old != size) {
+                        apply(brokerId, dir.getKey(), tp, size - old, size, delta);
+                        delta.changedReplicas++;
+                        changed.add(tp);
+                    }
+                }
+                Iterator<Map.Entry<TopicPartition, Long>> it = previous.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<TopicPartition, Long> replica = it.next();
+                    if (!seen.contains(replica.getKey())) {
+                        it.remove();
+                        removeReplica(brokerId, dir.getKey(), replica.getKey(), replica.getValue(), delta);
+                        changed.add(replica.getKey());
+                    }
+                }
+            }
+            Iterator<Map.Entry<String, Map<TopicPartition, Long>>> it = dirs.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Map<TopicPartition, Long>> dir = it.next();
+                if (!onlineDirs.contains(dir.getKey())) {
+                    it.remove();
+                    for (Map.Entry<TopicPartition, Long> replica : dir.getValue().entrySet()) {
+                        removeReplica(brokerId, dir.getKey(), replica.getKey(), replica.getValue(), delta);
+                        changed.add(replica.getKey());
+                    }
+                    Map<String, Long> brokerDirs = logDirBytes.get(brokerId);
+                    if (brokerDirs != null) {
+                        brokerDirs.remove(dir.getKey());
+                    }
+                }
+            }
+        }
+
+        for (TopicPartition tp : changed) {
+            rank(tp);
+        }
+        lastPollMs = nowMs;
+        return delta;
+    }
+
+
+    /**
+     * drop the replicas of a broker, e.g. after it was decommissioned.
+     *
+     * @param brokerId
+     */
+    public synchronized void forgetBroker(int brokerId) {
+        Map<String, Map<TopicPartition, Long>> dirs = replicas.remove(brokerId);
+        if (dirs == null) {
+            return;
+        }
+        Delta ignored = new Delta(0L);
+        for (Map.Entry<String, Map<TopicPartition, Long>> dir : dirs.entrySet()) {
+            for (Map.Entry<TopicPartition, Long> replica : dir.getValue().entrySet()) {
+                removeReplica(brokerId, dir.getKey(), replica.getKey(), replica.getValue(), ignored);
+                rank(replica.getKey());
+            }
+        }
+        brokerBytes.remove(brokerId);
+        logDirBytes.remove(brokerId);
+    }
+
+
+    private void apply(int brokerId, String dir, TopicPartition tp, long bytes, long size, Delta delta) {
+        brokerBytes.merge(brokerId, bytes, Long::sum);
+        logDirBytes.computeIfAbsent(brokerId, b -> Maps.newHashMap()).merge(dir, bytes, Long::sum);
+        topicBytes.merge(tp.topic(), bytes, Long::sum);
+        partitionReplicas.computeIfAbsent(tp, p -> Maps.newHashMap()).put(brokerId + ":" + dir, size);
+        delta.brokerGrowth.merge(brokerId, bytes, Long::sum);
+        delta.topicGrowth.merge(tp.topic(), bytes, Long::sum);
+    }
+
+
+    private void removeReplica(int brokerId, String dir, TopicPartition tp, long size, Delta delta) {
+        brokerBytes.merge(brokerId, -size, Long::sum);
+        Map<String, Long> dirs = logDirBytes.get(brokerId);
+        if (dirs != null) {
+            dirs.merge(dir, -size, Long::sum);
+        }
+        topicBytes.merge(tp.topic(), -size, Long::sum);
+        if (topicReplicas.merge(tp.topic(), -1, Integer::sum) <= 0) {
+            topicReplicas.remove(tp.topic());
+            topicBytes.remove(tp.topic());
+        }
+        Map<String, Long> sizes = partitionReplicas.get(tp);
+        if (sizes != null) {
+            sizes.remove(brokerId + ":" + dir);
+            if (sizes.isEmpty()) {
+                partitionReplicas.remove(tp);
+            }
+        }
+        delta.brokerGrowth.merge(brokerId, -size, Long::sum);
+        delta.topicGrowth.merge(tp.topic(), -size, Long::sum);
+        delta.removedReplicas++;
+    }
+
+
+    /**
+     * recompute the usage of a changed partition and move it in the rankings.
+     */
+    private void rank(TopicPartition tp) {
+        PartitionUsage old = partitions.remove(tp);
+        if (old != null) {
+            bySize.remove(old);
+            bySkew.remove(old);
+        }
+        Map<String, Long> sizes = partitionReplicas.get(tp);
+        if (sizes == null) {
+            return;
+        }
+        long max = 0;
+        long min = Long.MAX_VALUE;
+        long total = 0;
+        for (Long size : sizes.values()) {
+            max = Math.max(max, size);
+            min = Math.min(min, size);
+            total += size;
+        }
+        double skew = sizes.size() < 2 || max == 0 ? 0.0 : (double) (max - min) / max;
+        PartitionUsage usage = new PartitionUsage(tp, max, total, sizes.size(), skew);
+        partitions.put(tp, usage);
+        bySize.add(usage);
+        bySkew.add(usage);
+    }
+
+
+    /**
+     * @param n
+     * @return the n largest partitions, by the size of their largest replica
+     */
+    public synchronized List<PartitionUsage> topPartitions(int n) {
+        return first(bySize, n);
+    }
+
+
+    /**
+     * @param n
+     * @return the n partitions whose replicas differ the most in size
+     */
+    public synchronized List<PartitionUsage> topSkewedPartitions(int n) {
+        return first(bySkew, n);
+    }
+
+
+    private static List<PartitionUsage> first(TreeSet<PartitionUsage> ranking, int n) {
+        List<PartitionUsage> top = Lists.newArrayListWithCapacity(Math.min(n, ranking.size()));
+        for (PartitionUsage usage : ranking) {
+            if (top.size() >= n) {
+                break;
+            }
+            top.add(usage);
+        }
+        return top;
+    }
+
+
+    /**
+     * @return null if the partition has no replica
+     */
+    public synchronized PartitionUsage partition(TopicPartition tp) {
+        return partitions.get(tp);
+    }
+
+
+    /**
+     * @return topic -> the bytes of all of its replicas
+     */
+    public synchronized Map<String, Long> topicBytes() {
+        return ImmutableMap.copyOf(topicBytes);
+    }
+
+
+    /**
+     * @return broker -> the bytes of its replicas
+     */
+    public synchronized Map<Integer, Long> brokerBytes() {
+        return ImmutableMap.copyOf(brokerBytes);
+    }
+
+
+    /**
+     * @return broker -> log dir -> the bytes of its replicas
+     */
+    public synchronized Map<Integer, Map<String, Long>> logDirBytes() {
+        Map<Integer, Map<String, Long>> copy = Maps.newHashMap();
+        for (Map.Entry<Integer, Map<String, Long>> entry : logDirBytes.entrySet()) {
+            copy.put(entry.getKey(), ImmutableMap.copyOf(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+
+    /**
+     * @return the offline log dirs, as broker:dir
+     */
+    public synchronized Set<String> offlineLogDirs() {
+        return Collections.unmodifiableSet(Sets.newTreeSet(offlineLogDirs));
+    }
+
+
+    /**
+     * @return how much the most loaded broker exceeds the average, 0 when balanced
+     */
+    public synchronized double brokerSkew() {
+        return skew(brokerBytes.values());
+    }
+
+
+    /**
+     * @return how much the most loaded log dir of the broker exceeds the average of its log dirs
+     */
+    public synchronized double logDirSkew(int brokerId) {
+        Map<String, Long> dirs = logDirBytes.get(brokerId);
+        return dirs == null ? 0.0 : skew(dirs.values());
+    }
+
+
+    static double skew(Iterable<Long> values) {
+        long max = 0;
+        long total = 0;
+        int count = 0;
+        for (Long value : values) {
+            max = Math.max(max, value);
+            total += value;
+            count++;
+        }
+        if (count == 0 || total == 0) {
+            return 0.0;
+        }
+        return max / ((double) total / count) - 1;
+    }
+
+
+    /**
+     * the usage of a partition, over all of its replicas.
+     */
+    public static class PartitionUsage {
+
+        private final TopicPartition partition;
+
+        /**
+         * the bytes of the largest replica
+         */
+        private final long size;
+
+        /**
+         * the bytes of all the replicas
+         */
+        private final long totalBytes;
+
+        private final int replicas;
+
+        /**
+         * (largest - smallest) / largest replica, 0 when the replicas have the same size
+         */
+        private final double skew;
+
+        PartitionUsage(TopicPartition partition, long size, long totalBytes, int replicas, double skew) {
+            this.partition = partition;
+            this.size = size;
+            this.totalBytes = totalBytes;
+            this.replicas = replicas;
+            this.skew = skew;
+        }
+
+        public TopicPartition getPartition() {
+            return partition;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public int getReplicas() {
+            return replicas;
+        }
+
+        public double getSkew() {
+            return skew;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("partition", partition)
+                    .add("size", size)
+                    .add("totalBytes", totalBytes)
+                    .add("replicas", replicas)
+                    .add("skew", skew)
+                    .toString();
+        }
+    }
+
+
+    /**
+     * what changed between two polls.
+     */
+    public static class Delta {
+
+        private final long elapsedMs;
+
+        private final Map<Integer, Long> brokerGrowth = Maps.newHashMap();
+
+        private final Map<String, Long> topicGrowth = Maps.newHashMap();
+
+        private int addedReplicas = 0;
+
+        private int removedReplicas = 0;
+
+        private int changedReplicas = 0;
+
+        Delta(long elapsedMs) {
+            this.elapsedMs = elapsedMs;
+        }
+
+        /**
+         * @return the time since the previous poll, 0 for the first one
+         */
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        /**
+         * @return broker -> the bytes gained, negative if lost; only the brokers which changed
+         */
+        public Map<Integer, Long> getBrokerGrowth() {
+            return brokerGrowth;
+        }
+
+        /**
+         * @return topic -> the bytes gained, negative if lost; only the topics which changed
+         */
+        public Map<String, Long> getTopicGrowth() {
+            return topicGrowth;
+        }
+
+        public int getAddedReplicas() {
+            return addedReplicas;
+        }
+
+        public int getRemovedReplicas() {
+            return removedReplicas;
+        }
+
+        public int getChangedReplicas() {
+            return changedReplicas;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("elapsedMs", elapsedMs)
+                    .add("addedReplicas", addedReplicas)
+                    .add("removedReplicas", removedReplicas)
+                    .add("changedReplicas", changedReplicas)
+                    .add("brokerGrowth", brokerGrowth)
+                    .add("topicGrowth", topicGrowth)
+                    .toString();
+        }
+    }
+}
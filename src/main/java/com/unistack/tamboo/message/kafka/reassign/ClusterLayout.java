@@ -0,0 +1,130 @@
+package com.unistack.tamboo.message.kafka.reassign;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.bean.ClusterDescription;
+import com.unistack.tamboo.message.kafka.bean.ClusterNode;
+import com.unistack.tamboo.message.kafka.bean.TopicDescription;
+import com.unistack.tamboo.message.kafka.bean.TopicPartitionInfo;
+import com.unistack.tamboo.message.kafka.util.TopicAdmin;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * The input of the {@link ReassignmentPlanner}: the brokers and their racks, the replicas of every
+ * partition and the size of every partition. Built from the cluster by {@link #load(TopicAdmin, String...)}
+ * or by hand for offline planning. Everything is sorted so that the planning is deterministic.
+ */
+public class ClusterLayout {
+
+    public static final Comparator<TopicPartition> PARTITION_ORDER = Comparator
+            .comparing(TopicPartition::topic)
+            .thenComparingInt(TopicPartition::partition);
+
+    /**
+     * broker id -> rack, null if the broker has none
+     */
+    private final SortedMap<Integer, String> racks;
+
+    /**
+     * partition -> the replicas, the preferred leader first
+     */
+    private final SortedMap<TopicPartition, List<Integer>> assignment;
+
+    /**
+     * partition -> the size of the largest replica in bytes
+     */
+    private final Map<TopicPartition, Long> sizes;
+
+
+    public ClusterLayout(Map<Integer, String> racks, Map<TopicPartition, List<Integer>> assignment,
+                         Map<TopicPartition, Long> sizes) {
+        this.racks = Collections.unmodifiableSortedMap(new TreeMap<>(racks));
+        SortedMap<TopicPartition, List<Integer>> sorted = new TreeMap<>(PARTITION_ORDER);
+        for (Map.Entry<TopicPartition, List<Integer>> entry : assignment.entrySet()) {
+            sorted.put(entry.getKey(), Collections.unmodifiableList(Lists.newArrayList(entry.getValue())));
+        }
+        this.assignment = Collections.unmodifiableSortedMap(sorted);
+        this.sizes = Collections.unmodifiableMap(Maps.newHashMap(sizes));
+    }
+
+
+    /**
+     * read the layout of the topics from the cluster, with {@link TopicAdmin#describeTopic(String...)} and
+     * {@link TopicAdmin#describeLogDir(List)}.
+     *
+     * @param admin
+     * @param topics
+     * @return
+     */
+    public static ClusterLayout load(TopicAdmin admin, String... topics) {
+        ClusterDescription cluster = admin.listCluster();
+        Map<Integer, String> racks = Maps.newHashMap();
+        List<String> brokerIds = Lists.newArrayList();
+        for (ClusterNode node : cluster.getClusterNode()) {
+            racks.put(Integer.valueOf(node.getIdString()), node.getRack());
+            brokerIds.add(node.getIdString());
+        }
+
+        Map<TopicPartition, List<Integer>> assignment = Maps.newHashMap();
+        for (Map.Entry<String, TopicDescription> entry : admin.describeTopic(topics).entrySet()) {
+            for (TopicPartitionInfo info : entry.getValue().getPartitions()) {
+                List<Integer> replicas = Lists.newArrayList();
+                for (ClusterNode replica : info.getReplicas()) {
+                    if (replica.getIdString() != null) {
+                        replicas.add(Integer.valueOf(replica.getIdString()));
+                    }
+                }
+                assignment.put(new TopicPartition(entry.getKey(), info.getPartition()), replicas);
+            }
+        }
+
+        Map<TopicPartition, Long> sizes = Maps.newHashMap();
+        for (Map<String, DescribeLogDirsResponse.LogDirInfo> dirs : admin.describeLogDir(brokerIds).values()) {
+            for (DescribeLogDirsResponse.LogDirInfo dir : dirs.values()) {
+                for (Map.Entry<TopicPartition, DescribeLogDirsResponse.ReplicaInfo> replica : dir.replicaInfos.entrySet()) {
+                    if (assignment.containsKey(replica.getKey()) && !replica.getValue().isFuture) {
+                        sizes.merge(replica.getKey(), replica.getValue().size, Math::max);
+                    }
+                }
+            }
+        }
+        return new ClusterLayout(racks, assignment, sizes);
+    }
+
+
+    public SortedMap<Integer, String> getRacks() {
+        return racks;
+    }
+
+    public SortedMap<TopicPartition, List<Integer>> getAssignment() {
+        return assignment;
+    }
+
+    public Map<TopicPartition, Long> getSizes() {
+        return sizes;
+    }
+
+    public long sizeOf(TopicPartition tp) {
+        Long size = sizes.get(tp);
+        return size != null ? size : 0L;
+    }
+
+    /**
+     * @return the rack of the broker, or the broker itself when it has no rack
+     */
+    public String rackOf(int broker) {
+        String rack = racks.get(broker);
+        return rack != null ? rack : "broker-" + broker;
+    }
+}
@@ -0,0 +1,85 @@
+package com.unistack.tamboo.message.kafka.reassign;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * The reassignment of the replicas of a single partition.
+ */
+public class PartitionMove {
+
+    private final TopicPartition partition;
+
+    private final List<Integer> currentReplicas;
+
+    private final List<Integer> targetReplicas;
+
+    /**
+     * the bytes copied to the added replicas
+     */
+    private final long bytes;
+
+
+    public PartitionMove(TopicPartition partition, List<Integer> currentReplicas, List<Integer> targetReplicas,
+                         long size) {
+        this.partition = partition;
+        this.currentReplicas = Collections.unmodifiableList(Lists.newArrayList(currentReplicas));
+        this.targetReplicas = Collections.unmodifiableList(Lists.newArrayList(targetReplicas));
+        this.bytes = size * addedReplicas().size();
+    }
+
+
+    /**
+     * @return the brokers receiving a copy of the partition
+     */
+    public List<Integer> addedReplicas() {
+        List<Integer> added = Lists.newArrayList(targetReplicas);
+        added.removeAll(currentReplicas);
+        return added;
+    }
+
+
+    /**
+     * @return the brokers losing their copy of the partition
+     */
+    public List<Integer> removedReplicas() {
+        List<Integer> removed = Lists.newArrayList(currentReplicas);
+        removed.removeAll(targetReplicas);
+        return removed;
+    }
+
+
+    public TopicPartition getPartition() {
+        return partition;
+    }
+
+    public List<Integer> getCurrentReplicas() {
+        return currentReplicas;
+    }
+
+    public List<Integer> getTargetReplicas() {
+        return targetReplicas;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("partition", partition)
+                .add("currentReplicas", currentReplicas)
+                .add("targetReplicas", targetReplicas)
+                .add("bytes", bytes)
+                .toString();
+    }
+}
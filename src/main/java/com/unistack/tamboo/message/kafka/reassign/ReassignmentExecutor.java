@@ -0,0 +1,236 @@
+package com.unistack.tamboo.message.kafka.reassign;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import com.unistack.tamboo.message.kafka.monitor.ZkHelper;
+import org.I0Itec.zkclient.ZkClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Execute the waves of a {@link ReassignmentPlan} through ZooKeeper, one wave at a time: the replication
+ * of the moved partitions is throttled, the wave is written to {@code /admin/reassign_partitions} and the
+ * executor waits for the controller to delete it once the wave is done. The throttles are removed after
+ * the last wave; they are kept when a wave fails or times out, since the controller carries on.
+ */
+public class ReassignmentExecutor {
+
+    public static final Logger log = LoggerFactory.getLogger(ReassignmentExecutor.class);
+
+    public static final String REASSIGN_PARTITIONS_PATH = "/admin/reassign_partitions";
+
+    public static final String CONFIG_PATH = "/config";
+
+    public static final String CONFIG_CHANGE_PATH = "/config/changes/config_change_";
+
+    public static final String LEADER_THROTTLED_RATE = "leader.replication.throttled.rate";
+
+    public static final String FOLLOWER_THROTTLED_RATE = "follower.replication.throttled.rate";
+
+    public static final String LEADER_THROTTLED_REPLICAS = "leader.replication.throttled.replicas";
+
+    public static final String FOLLOWER_THROTTLED_REPLICAS = "follower.replication.throttled.replicas";
+
+    public static final long CHECK_INTERVAL_MS = 1000L;
+
+    private final String zkUrl;
+
+    /**
+     * the replication throttle of every broker involved, in bytes per second
+     */
+    private final long throttleBytesPerSec;
+
+
+    public ReassignmentExecutor(String zkUrl, long throttleBytesPerSec) {
+        this.zkUrl = zkUrl;
+        this.throttleBytesPerSec = throttleBytesPerSec;
+    }
+
+
+    /**
+     * @param waves         see {@link ReassignmentPlan#waves(long, int)}
+     * @param waveTimeoutMs how long to wait for a wave to complete
+     * @throws ConnectException if a reassignment is already in progress, or if a wave timed out
+     */
+    public void execute(List<List<PartitionMove>> waves, long waveTimeoutMs) {
+        ZkClient zkClient = null;
+        Set<String> topics = new TreeSet<>();
+        Set<Integer> brokers = new TreeSet<>();
+        try {
+            zkClient = ZkHelper.getZkClient(zkUrl);
+            if (zkClient.exists(REASSIGN_PARTITIONS_PATH)) {
+                throw new ConnectException("A partition reassignment is already in progress");
+            }
+            for (int i = 0; i < waves.size(); i++) {
+                List<PartitionMove> wave = waves.get(i);
+                throttle(zkClient, wave, topics, brokers);
+                zkClient.createPersistent(REASSIGN_PARTITIONS_PATH, ReassignmentPlan.toReassignmentJson(wave));
+                log.info("Started reassignment wave {}/{} of {} partition(s)", i + 1, waves.size(), wave.size());
+                awaitCompletion(zkClient, waveTimeoutMs);
+                log.info("Completed reassignment wave {}/{}", i + 1, waves.size());
+            }
+            clearThrottles(zkClient, topics, brokers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while reassigning partitions", e);
+        } finally {
+            ZkHelper.close(zkClient);
+        }
+    }
+
+
+    /**
+     * @return if the controller is reassigning partitions
+     */
+    public boolean isInProgress() {
+        ZkClient zkClient = null;
+        try {
+            zkClient = ZkHelper.getZkClient(zkUrl);
+            return zkClient.exists(REASSIGN_PARTITIONS_PATH);
+        } finally {
+            ZkHelper.close(zkClient);
+        }
+    }
+
+
+    /**
+     * remove the throttles left by a failed execution.
+     *
+     * @param topics
+     * @param brokers
+     */
+    public void clearThrottles(Collection<String> topics, Collection<Integer> brokers) {
+        ZkClient zkClient = null;
+        try {
+            zkClient = ZkHelper.getZkClient(zkUrl);
+            clearThrottles(zkClient, topics, brokers);
+        } finally {
+            ZkHelper.close(zkClient);
+        }
+    }
+
+
+    private void awaitCompletion(ZkClient zkClient, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (zkClient.exists(REASSIGN_PARTITIONS_PATH)) {
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ConnectException("Timed out after " + timeoutMs + " ms waiting for the reassignment;" +
+                        " the replication throttles are kept until it completes");
+            }
+            Thread.sleep(CHECK_INTERVAL_MS);
+        }
+    }
+
+
+    /**
+     * the leaders throttle the current replicas of the moved partitions, the followers the added ones,
+     * as {@code kafka-reassign-partitions.sh} does.
+     */
+    private void throttle(ZkClient zkClient, List<PartitionMove> wave, Set<String> topics, Set<Integer> brokers) {
+        Map<String, List<String>> leaderReplicas = new TreeMap<>();
+        Map<String, List<String>> followerReplicas = new TreeMap<>();
+        Set<Integer> involved = new TreeSet<>();
+        for (PartitionMove move : wave) {
+            String topic = move.getPartition().topic();
+            int partition = move.getPartition().partition();
+            for (Integer broker : move.getCurrentReplicas()) {
+                leaderReplicas.computeIfAbsent(topic, t -> Lists.newArrayList()).add(partition + ":" + broker);
+            }
+            for (Integer broker : move.addedReplicas()) {
+                followerReplicas.computeIfAbsent(topic, t -> Lists.newArrayList()).add(partition + ":" + broker);
+            }
+            involved.addAll(move.getCurrentReplicas());
+            involved.addAll(move.getTargetReplicas());
+        }
+
+        for (String topic : Sets.union(topics, leaderReplicas.keySet()).immutableCopy()) {
+            Map<String, String> configs = Maps.newHashMap();
+            List<String> leaders = leaderReplicas.get(topic);
+            List<String> followers = followerReplicas.get(topic);
+            configs.put(LEADER_THROTTLED_REPLICAS, leaders == null ? null : Joiner.on(',').join(leaders));
+            configs.put(FOLLOWER_THROTTLED_REPLICAS, followers == null ? null : Joiner.on(',').join(followers));
+            changeConfigs(zkClient, "topics", topic, configs);
+        }
+        for (Integer broker : Sets.difference(involved, brokers).immutableCopy()) {
+            Map<String, String> configs = Maps.newHashMap();
+            configs.put(LEADER_THROTTLED_RATE, String.valueOf(throttleBytesPerSec));
+            configs.put(FOLLOWER_THROTTLED_RATE, String.valueOf(throttleBytesPerSec));
+            changeConfigs(zkClient, "brokers", String.valueOf(broker), configs);
+        }
+        topics.addAll(leaderReplicas.keySet());
+        brokers.addAll(involved);
+    }
+
+
+    private void clearThrottles(ZkClient zkClient, Collection<String> topics, Collection<Integer> brokers) {
+        Map<String, String> topicConfigs = Maps.newHashMap();
+        topicConfigs.put(LEADER_THROTTLED_REPLICAS, null);
+        topicConfigs.put(FOLLOWER_THROTTLED_REPLICAS, null);
+        for (String topic : topics) {
+            changeConfigs(zkClient, "topics", topic, topicConfigs);
+        }
+        Map<String, String> brokerConfigs = Maps.newHashMap();
+        brokerConfigs.put(LEADER_THROTTLED_RATE, null);
+        brokerConfigs.put(FOLLOWER_THROTTLED_RATE, null);
+        for (Integer broker : brokers) {
+            changeConfigs(zkClient, "brokers", String.valueOf(broker), brokerConfigs);
+        }
+        log.info("Removed the replication throttles of {} topic(s) and {} broker(s)", topics.size(), brokers.size());
+    }
+
+
+    /**
+     * merge the configs into the dynamic configs of the entity and notify the brokers.
+     *
+     * @param configs the configs to set, a null value removes the config
+     */
+    private static void changeConfigs(ZkClient zkClient, String entityType, String entityName,
+                                      Map<String, String> configs) {
+        String path = CONFIG_PATH + "/" + entityType + "/" + entityName;
+        JSONObject json = null;
+        if (zkClient.exists(path)) {
+            Object data = zkClient.readData(path, true);
+            json = data == null ? null : JSON.parseObject(data.toString());
+        }
+        if (json == null) {
+            json = new JSONObject(true);
+            json.put("version", 1);
+        }
+        JSONObject current = json.getJSONObject("config");
+        if (current == null) {
+            current = new JSONObject(true);
+            json.put("config", current);
+        }
+        for (Map.Entry<String, String> entry : configs.entrySet()) {
+            if (entry.getValue() == null) {
+                current.remove(entry.getKey());
+            } else {
+                current.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!zkClient.exists(path)) {
+            zkClient.createPersistent(path, true);
+        }
+        zkClient.writeData(path, json.toJSONString());
+
+        JSONObject notification = new JSONObject(true);
+        notification.put("version", 2);
+        notification.put("entity_path", entityType + "/" + entityName);
+        zkClient.createPersistentSequential(CONFIG_CHANGE_PATH, notification.toJSONString());
+    }
+}
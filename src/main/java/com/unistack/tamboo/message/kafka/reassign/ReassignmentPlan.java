@@ -0,0 +1,120 @@
+package com.unistack.tamboo.message.kafka.reassign;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * The moves computed by the {@link ReassignmentPlanner} and the load of every broker before and after.
+ */
+public class ReassignmentPlan {
+
+    private final List<PartitionMove> moves;
+
+    /**
+     * broker id -> the bytes of its replicas
+     */
+    private final SortedMap<Integer, Long> currentLoad;
+
+    private final SortedMap<Integer, Long> targetLoad;
+
+
+    public ReassignmentPlan(List<PartitionMove> moves, SortedMap<Integer, Long> currentLoad,
+                            SortedMap<Integer, Long> targetLoad) {
+        this.moves = Collections.unmodifiableList(moves);
+        this.currentLoad = Collections.unmodifiableSortedMap(currentLoad);
+        this.targetLoad = Collections.unmodifiableSortedMap(targetLoad);
+    }
+
+
+    /**
+     * split the moves into waves executed one after the other, in the order of the moves.
+     *
+     * @param maxBytesPerWave      the bytes copied by a wave, a larger move has a wave of its own
+     * @param maxPartitionsPerWave
+     * @return
+     */
+    public List<List<PartitionMove>> waves(long maxBytesPerWave, int maxPartitionsPerWave) {
+        List<List<PartitionMove>> waves = Lists.newArrayList();
+        List<PartitionMove> wave = Lists.newArrayList();
+        long waveBytes = 0;
+        for (PartitionMove move : moves) {
+            if (!wave.isEmpty() && (waveBytes + move.getBytes() > maxBytesPerWave || wave.size() >= maxPartitionsPerWave)) {
+                waves.add(wave);
+                wave = Lists.newArrayList();
+                waveBytes = 0;
+            }
+            wave.add(move);
+            waveBytes += move.getBytes();
+        }
+        if (!wave.isEmpty()) {
+            waves.add(wave);
+        }
+        return waves;
+    }
+
+
+    /**
+     * @param moves
+     * @return the content of {@code /admin/reassign_partitions}
+     */
+    public static String toReassignmentJson(Collection<PartitionMove> moves) {
+        JSONArray partitions = new JSONArray();
+        for (PartitionMove move : moves) {
+            JSONObject partition = new JSONObject(true);
+            partition.put("topic", move.getPartition().topic());
+            partition.put("partition", move.getPartition().partition());
+            partition.put("replicas", move.getTargetReplicas());
+            partitions.add(partition);
+        }
+        JSONObject json = new JSONObject(true);
+        json.put("version", 1);
+        json.put("partitions", partitions);
+        return json.toJSONString();
+    }
+
+
+    public List<PartitionMove> getMoves() {
+        return moves;
+    }
+
+    public SortedMap<Integer, Long> getCurrentLoad() {
+        return currentLoad;
+    }
+
+    public SortedMap<Integer, Long> getTargetLoad() {
+        return targetLoad;
+    }
+
+    public long getBytesMoved() {
+        long bytes = 0;
+        for (PartitionMove move : moves) {
+            bytes += move.getBytes();
+        }
+        return bytes;
+    }
+
+    public boolean isEmpty() {
+        return moves.isEmpty();
+    }
+
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("moves", moves.size())
+                .add("bytesMoved", getBytesMoved())
+                .add("currentLoad", currentLoad)
+                .add("targetLoad", targetLoad)
+                .toString();
+    }
+}
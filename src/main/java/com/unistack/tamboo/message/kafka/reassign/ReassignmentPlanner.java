@@ -0,0 +1,325 @@
+package com.unistack.tamboo.message.kafka.reassign;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Compute a balanced, rack-aware assignment of the replicas, moving as few bytes as possible:
+ * <ol>
+ * <li>the replicas on unknown brokers, and the replicas sharing a rack while another rack is free, are
+ * moved to the least loaded broker of a free rack;</li>
+ * <li>then, while the brokers are not balanced within the tolerance, a replica of the most loaded broker
+ * is moved to the least loaded one, choosing the replica which closes half of the gap between them, so
+ * that every move is a strict improvement and the large moves are done first.</li>
+ * </ol>
+ * The load of a broker is the bytes of its replicas plus one per replica, so that empty partitions are
+ * balanced by count. A replica keeps its position in the list, so the preferred leader changes only when
+ * the leader itself moves. The planner is deterministic: the same layout always gives the same plan.
+ */
+public class ReassignmentPlanner {
+
+    public static final Logger log = LoggerFactory.getLogger(ReassignmentPlanner.class);
+
+    /**
+     * the brokers are balanced when the gap between the most and the least loaded is within this
+     * fraction of the average load
+     */
+    public static final double DEFAULT_TOLERANCE = 0.05;
+
+    public static final int DEFAULT_MAX_MOVES = 10000;
+
+    private final double tolerance;
+
+    private final int maxMoves;
+
+
+    public ReassignmentPlanner() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_MOVES);
+    }
+
+    /**
+     * @param tolerance the accepted imbalance, as a fraction of the average load
+     * @param maxMoves  the max number of replica moves of the balancing
+     */
+    public ReassignmentPlanner(double tolerance, int maxMoves) {
+        this.tolerance = tolerance;
+        this.maxMoves = maxMoves;
+    }
+
+
+    public ReassignmentPlan plan(ClusterLayout layout) {
+        State state = new State(layout);
+        int repaired = state.repair();
+        int balanced = state.balance();
+        log.info("Planned {} replica move(s) to repair the racks and {} to balance {} broker(s)",
+                repaired, balanced, layout.getRacks().size());
+        return state.toPlan();
+    }
+
+
+    private class State {
+
+        private final ClusterLayout layout;
+
+        private final SortedMap<TopicPartition, List<Integer>> target = new TreeMap<>(ClusterLayout.PARTITION_ORDER);
+
+        private final SortedMap<Integer, Long> load = new TreeMap<>();
+
+        /**
+         * broker id -> the partitions it has a replica of
+         */
+        private final Map<Integer, TreeSet<TopicPartition>> replicasOf = Maps.newHashMap();
+
+        private final int rackCount;
+
+
+        State(ClusterLayout layout) {
+            this.layout = layout;
+            Set<String> racks = Sets.newHashSet();
+            for (Integer broker : layout.getRacks().keySet()) {
+                load.put(broker, 0L);
+                replicasOf.put(broker, new TreeSet<>(ClusterLayout.PARTITION_ORDER));
+                racks.add(layout.rackOf(broker));
+            }
+            this.rackCount = racks.size();
+            for (Map.Entry<TopicPartition, List<Integer>> entry : layout.getAssignment().entrySet()) {
+                List<Integer> replicas = Lists.newArrayList(entry.getValue());
+                target.put(entry.getKey(), replicas);
+                for (Integer broker : replicas) {
+                    if (load.containsKey(broker)) {
+                        add(broker, entry.getKey());
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * @return the number of replicas moved
+         */
+        int repair() {
+            int moves = 0;
+            for (Map.Entry<TopicPartition, List<Integer>> entry : target.entrySet()) {
+                TopicPartition tp = entry.getKey();
+                List<Integer> replicas = entry.getValue();
+                for (int i = 0; i < replicas.size(); i++) {
+                    int broker = replicas.get(i);
+                    boolean unknown = !load.containsKey(broker);
+                    if (!unknown && !sharesRack(replicas, i)) {
+                        continue;
+                    }
+                    if (!unknown && distinctRacks(replicas) >= Math.min(replicas.size(), rackCount)) {
+                        continue;
+                    }
+                    Integer replacement = leastLoaded(replicas, i, !unknown);
+                    if (replacement == null) {
+                        continue;
+                    }
+                    move(tp, i, replacement);
+                    moves++;
+                }
+            }
+            return moves;
+        }
+
+
+        /**
+         * @return the number of replicas moved
+         */
+        int balance() {
+            int moves = 0;
+            if (load.size() < 2) {
+                return moves;
+            }
+            while (moves < maxMoves) {
+                List<Integer> byLoad = Lists.newArrayList(load.keySet());
+                byLoad.sort((a, b) -> load.get(a).equals(load.get(b)) ? Integer.compare(a, b)
+                        : Long.compare(load.get(a), load.get(b)));
+                long total = 0;
+                for (Long value : load.values()) {
+                    total += value;
+                }
+                double average = (double) total / load.size();
+                long gap = load.get(byLoad.get(byLoad.size() - 1)) - load.get(byLoad.get(0));
+                if (gap <= tolerance * average) {
+                    break;
+                }
+                if (!moveOne(byLoad)) {
+                    break;
+                }
+                moves++;
+            }
+            return moves;
+        }
+
+
+        /**
+         * move one replica from a loaded broker to a less loaded one, the most loaded pair first.
+         */
+        private boolean moveOne(List<Integer> byLoad) {
+            for (int s = byLoad.size() - 1; s > 0; s--) {
+                int source = byLoad.get(s);
+                for (int d = 0; d < s; d++) {
+                    int destination = byLoad.get(d);
+                    long gap = load.get(source) - load.get(destination);
+                    if (gap <= 0) {
+                        break;
+                    }
+                    TopicPartition best = null;
+                    int bestIndex = -1;
+                    long bestDistance = Long.MAX_VALUE;
+                    for (TopicPartition tp : replicasOf.get(source)) {
+                        long weight = weight(tp);
+                        List<Integer> replicas = target.get(tp);
+                        if (weight >= gap || replicas.contains(destination)) {
+                            continue;
+                        }
+                        int index = replicas.indexOf(source);
+                        if (!keepsRacks(replicas, index, destination)) {
+                            continue;
+                        }
+                        long distance = Math.abs(gap - 2 * weight);
+                        if (distance < bestDistance) {
+                            best = tp;
+                            bestIndex = index;
+                            bestDistance = distance;
+                        }
+                    }
+                    if (best != null) {
+                        move(best, bestIndex, destination);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+
+        ReassignmentPlan toPlan() {
+            List<PartitionMove> moves = Lists.newArrayList();
+            for (Map.Entry<TopicPartition, List<Integer>> entry : target.entrySet()) {
+                List<Integer> current = layout.getAssignment().get(entry.getKey());
+                if (!current.equals(entry.getValue())) {
+                    moves.add(new PartitionMove(entry.getKey(), current, entry.getValue(),
+                            layout.sizeOf(entry.getKey())));
+                }
+            }
+            SortedMap<Integer, Long> currentLoad = new TreeMap<>();
+            SortedMap<Integer, Long> targetLoad = new TreeMap<>();
+            for (Integer broker : load.keySet()) {
+                currentLoad.put(broker, 0L);
+                targetLoad.put(broker, 0L);
+            }
+            for (Map.Entry<TopicPartition, List<Integer>> entry : layout.getAssignment().entrySet()) {
+                for (Integer broker : entry.getValue()) {
+                    currentLoad.merge(broker, layout.sizeOf(entry.getKey()), Long::sum);
+                }
+                for (Integer broker : target.get(entry.getKey())) {
+                    targetLoad.merge(broker, layout.sizeOf(entry.getKey()), Long::sum);
+                }
+            }
+            return new ReassignmentPlan(moves, currentLoad, targetLoad);
+        }
+
+
+        private long weight(TopicPartition tp) {
+            return layout.sizeOf(tp) + 1;
+        }
+
+
+        private void add(int broker, TopicPartition tp) {
+            load.merge(broker, weight(tp), Long::sum);
+            replicasOf.get(broker).add(tp);
+        }
+
+
+        private void move(TopicPartition tp, int index, int destination) {
+            List<Integer> replicas = target.get(tp);
+            int source = replicas.get(index);
+            if (load.containsKey(source)) {
+                load.merge(source, -weight(tp), Long::sum);
+                replicasOf.get(source).remove(tp);
+            }
+            replicas.set(index, destination);
+            add(destination, tp);
+        }
+
+
+        /**
+         * @return if an earlier replica is on the same rack as the replica at the index
+         */
+        private boolean sharesRack(List<Integer> replicas, int index) {
+            String rack = layout.rackOf(replicas.get(index));
+            for (int i = 0; i < index; i++) {
+                if (layout.rackOf(replicas.get(i)).equals(rack)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+
+        private int distinctRacks(List<Integer> replicas) {
+            Set<String> racks = Sets.newHashSet();
+            for (Integer broker : replicas) {
+                racks.add(layout.rackOf(broker));
+            }
+            return racks.size();
+        }
+
+
+        /**
+         * @return if replacing the replica at the index by the destination spreads the replicas over as
+         * many racks as before
+         */
+        private boolean keepsRacks(List<Integer> replicas, int index, int destination) {
+            List<Integer> moved = Lists.newArrayList(replicas);
+            moved.set(index, destination);
+            return distinctRacks(moved) >= distinctRacks(replicas);
+        }
+
+
+        /**
+         * @return the least loaded broker which can replace the replica at the index, on a rack the other
+         * replicas do not use if there is one; null if there is none, or if there is no free rack and one
+         * is required
+         */
+        private Integer leastLoaded(List<Integer> replicas, int index, boolean requireFreeRack) {
+            Set<String> usedRacks = Sets.newHashSet();
+            for (int i = 0; i < replicas.size(); i++) {
+                if (i != index) {
+                    usedRacks.add(layout.rackOf(replicas.get(i)));
+                }
+            }
+            Integer best = null;
+            boolean bestFreeRack = false;
+            for (Map.Entry<Integer, Long> entry : load.entrySet()) {
+                int broker = entry.getKey();
+                if (replicas.contains(broker)) {
+                    continue;
+                }
+                boolean freeRack = !usedRacks.contains(layout.rackOf(broker));
+                if (best == null || (freeRack && !bestFreeRack)
+                        || (freeRack == bestFreeRack && entry.getValue() < load.get(best))) {
+                    best = broker;
+                    bestFreeRack = freeRack;
+                }
+            }
+            return requireFreeRack && !bestFreeRack ? null : best;
+        }
+    }
+}
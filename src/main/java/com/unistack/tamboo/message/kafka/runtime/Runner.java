@@ -1,8 +1,14 @@
 package com.unistack.tamboo.message.kafka.runtime;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
 import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.lag.LagSnapshotCache;
 import com.unistack.tamboo.message.kafka.storage.ConsumerGroupBackingStore;
 import com.unistack.tamboo.message.kafka.storage.KafkaStatusBackingStore;
 import org.apache.kafka.common.config.types.Password;
@@ -15,6 +21,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Gyges Zean
@@ -32,6 +41,27 @@ public class Runner {
 
     private Map<String, Object> config;
 
+    /**
+     * the max number of lag snapshot caches, each holds an admin client, a consumer and a thread
+     */
+    public static final int MAX_LAG_SNAPSHOT_CACHES = 16;
+
+    /**
+     * a lag snapshot cache which is not read for this long is closed
+     */
+    public static final long LAG_SNAPSHOT_CACHE_IDLE_MS = 10 * 60 * 1000L;
+
+    /**
+     * servers|topics -> the lag snapshot cache, the evicted caches are closed. The idle caches are evicted
+     * on the next access of the map.
+     */
+    private final Cache<String, LagSnapshotCache> lagSnapshotCaches = CacheBuilder.newBuilder()
+            .maximumSize(MAX_LAG_SNAPSHOT_CACHES)
+            .expireAfterAccess(LAG_SNAPSHOT_CACHE_IDLE_MS, TimeUnit.MILLISECONDS)
+            .removalListener((RemovalListener<String, LagSnapshotCache>) notification ->
+                    notification.getValue().close())
+            .build();
+
     public Runner() {
     }
 
@@ -59,6 +89,55 @@ public class Runner {
     }
 
 
+    /**
+     * 从缓存中获取所有group下所有consumer的消息消费信息, the offsets are refreshed in the background
+     * every ttlMs and shared by all of the callers.
+     *
+     * @param bootstrapServers
+     * @param topicNames
+     * @param ttlMs
+     * @return
+     */
+    public List<ConsumerOffset> getConsumerGroups(String bootstrapServers, List<String> topicNames, long ttlMs) {
+        return getLagSnapshotCache(bootstrapServers, topicNames, ttlMs).get().offsets();
+    }
+
+
+    /**
+     * get or start the lag snapshot cache of the given cluster and topics.
+     *
+     * @param bootstrapServers
+     * @param topicNames
+     * @param ttlMs            must be the ttl of the cache if it already exists
+     * @return
+     * @throws IllegalArgumentException if the cache exists with another ttl
+     */
+    public LagSnapshotCache getLagSnapshotCache(String bootstrapServers, List<String> topicNames, long ttlMs) {
+        String key = bootstrapServers + "|" + new TreeSet<>(topicNames);
+        LagSnapshotCache cache;
+        try {
+            cache = lagSnapshotCaches.get(key, () -> {
+                LagSnapshotCache created = new LagSnapshotCache(
+                        new ConsumerGroupBackingStore(bootstrapServers, topicNames), ttlMs);
+                created.start();
+                return created;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new ConnectException("Failed to create the lag snapshot cache of " + key, e.getCause());
+        }
+        if (cache.ttlMs() != ttlMs) {
+            throw new IllegalArgumentException("The lag snapshot cache of " + key + " refreshes every "
+                    + cache.ttlMs() + " ms, not " + ttlMs + " ms");
+        }
+        return cache;
+    }
+
+
+    public void stopLagSnapshotCaches() {
+        lagSnapshotCaches.invalidateAll();
+    }
+
+
     public String getRunnerId() {
         return runnerId;
     }
@@ -0,0 +1,16 @@
+package com.unistack.tamboo.message.kafka.storage;
+
+import java.util.Iterator;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * An iterator holding resources until it is consumed to the end or closed. Close it when the
+ * iteration is abandoned, so that the work still in flight is cancelled.
+ */
+public interface CloseableIterator<T> extends Iterator<T>, AutoCloseable {
+
+    @Override
+    void close();
+}
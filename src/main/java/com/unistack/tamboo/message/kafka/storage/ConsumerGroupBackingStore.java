@@ -1,13 +1,17 @@
 package com.unistack.tamboo.message.kafka.storage;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.Callback;
 import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffsetTable;
+import com.unistack.tamboo.message.kafka.lag.TimeLagEstimator;
 import kafka.admin.AdminClient;
 import kafka.coordinator.group.GroupOverview;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.slf4j.Logger;
@@ -15,8 +19,12 @@ import org.slf4j.LoggerFactory;
 import scala.collection.JavaConversions;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import static com.unistack.tamboo.message.kafka.util.CommonUtils.getSecurityProps;
 
@@ -30,10 +38,39 @@ public class ConsumerGroupBackingStore implements OffsetBackingStore {
 
     public static final Logger logger = LoggerFactory.getLogger(ConsumerGroupBackingStore.class);
 
+    /**
+     * describe group的默认超时时间
+     */
+    public static final long DESCRIBE_GROUP_TIMEOUT_MS = 100;
 
-    private AdminClient adminClient = null;
-    private String bootstrapServers;
-    private List<String> topicList;
+    /**
+     * how long the index is trusted before it is rebuilt with a full sweep
+     */
+    public static final long INDEX_RELIST_INTERVAL_MS = 60 * 1000L;
+
+
+    protected AdminClient adminClient = null;
+    protected String bootstrapServers;
+
+    /**
+     * 需要获取offset的topic, hashed so that the filter is O(1) per partition
+     */
+    private final Set<String> topics;
+
+    /**
+     * topic->groups and group->topics, refreshed by every describe
+     */
+    protected final ConsumerGroupIndex index = new ConsumerGroupIndex();
+
+    /**
+     * 整个扫描过程复用的consumer, 只用于获取LEO/LSO
+     */
+    private KafkaConsumer<byte[], byte[]> consumer;
+
+    /**
+     * 估算时间延迟, null if the time lag is not needed
+     */
+    private TimeLagEstimator timeLagEstimator;
 
     public ConsumerGroupBackingStore(String bootstrapServers, List<String> topicNames) {
         Properties props = new Properties();
@@ -42,56 +79,362 @@ public class ConsumerGroupBackingStore implements OffsetBackingStore {
         props.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.putAll(getSecurityProps(bootstrapServers));
         this.adminClient = AdminClient.create(props);
-        topicList = topicNames;
+        this.topics = Sets.newHashSet(topicNames);
     }
 
 
     /**
      * 获取消息信息
+     * <p>
+     * The sweep first collects the assignment and committed offsets of every group,
+     * then resolves the log-end and log-start offsets of all assigned partitions
+     * with one batched request each.
      */
     @Override
     public List<ConsumerOffset> getConsumerGroups() {
-        List<ConsumerOffset> offsetList = Lists.newArrayList();
-        for (GroupOverview go : JavaConversions.asJavaCollection(adminClient.listAllConsumerGroupsFlattened())) {
-            offsetList.addAll(getOffsets(go.groupId()));
+        return resolveOffsets(describeGroups());
+    }
+
+    /**
+     * 流式获取消息信息: every group is described and resolved on its own and handed to the callback
+     * right away, so memory is bounded by the groups in flight instead of the whole sweep. The log
+     * offsets are fetched with one batched request per group.
+     *
+     * @param callback invoked once per group with its offsets
+     */
+    @Override
+    public void getConsumerGroups(Callback<List<ConsumerOffset>> callback) {
+        try (CloseableIterator<List<ConsumerOffset>> iterator = iterateConsumerGroups()) {
+            while (true) {
+                List<ConsumerOffset> offsets;
+                try {
+                    if (!iterator.hasNext()) {
+                        return;
+                    }
+                    offsets = iterator.next();
+                } catch (Exception e) {
+                    logger.error("Failed to get the offsets of consumer groups", e);
+                    callback.onCompletion(e, null);
+                    return;
+                }
+                try {
+                    callback.onCompletion(null, offsets);
+                } catch (Exception e) {
+                    logger.error("Failed to hand over the offsets of a consumer group, stop the sweep", e);
+                    return;
+                }
+            }
         }
-        return offsetList;
     }
 
+
+    /**
+     * 获取消息信息, lazily: a group is described and resolved only when the iterator is advanced.
+     * The iterator must be consumed to the end or closed.
+     *
+     * @return an iterator over the offsets of every group
+     */
+    public CloseableIterator<List<ConsumerOffset>> iterateConsumerGroups() {
+        final CloseableIterator<GroupAssignment> assignments = describeGroupsLazily();
+        return new CloseableAbstractIterator<List<ConsumerOffset>>() {
+            @Override
+            protected List<ConsumerOffset> computeNext() {
+                while (assignments.hasNext()) {
+                    List<ConsumerOffset> offsets = resolveOffsets(Collections.singletonList(assignments.next()));
+                    if (!offsets.isEmpty()) {
+                        return offsets;
+                    }
+                }
+                return endOfData();
+            }
+
+            @Override
+            public void close() {
+                assignments.close();
+            }
+        };
+    }
+
+
     @Override
     public void close() {
+        if (consumer != null) {
+            consumer.close();
+            consumer = null;
+        }
         adminClient.close();
     }
 
-//    private List<String> getTopicList(String bootstrapServers, List<String> groupIds) {
-//        List<String> topicList = Lists.newArrayList();
-//        KafkaConsumer<byte[], byte[]> consumer = null;
-//        try {
-//            for (String g : groupIds) {
-//                consumer = getKafkaConsumer(bootstrapServers, g);
-//                topicList.addAll(consumer.listTopics().keySet());
-//            }
-//        } finally {
-//            if (consumer != null) {
-//                consumer.close();
-//            }
-//        }
-//        return topicList;
-//    }
+
+    /**
+     * describe all consumer groups one by one.
+     *
+     * @return the assignment of every group which is stable and has committed offsets
+     */
+    protected List<GroupAssignment> describeGroups() {
+        try (CloseableIterator<GroupAssignment> assignments = describeGroupsLazily()) {
+            return Lists.newArrayList(assignments);
+        }
+    }
+
+
+    /**
+     * describe the consumer groups one by one as the iterator is advanced.
+     *
+     * @return the assignment of every group which is stable and has committed offsets
+     */
+    protected CloseableIterator<GroupAssignment> describeGroupsLazily() {
+        final Iterator<String> groups = listGroups().iterator();
+        return new CloseableAbstractIterator<GroupAssignment>() {
+            @Override
+            protected GroupAssignment computeNext() {
+                while (groups.hasNext()) {
+                    GroupAssignment assignment = describeGroup(groups.next(), describeTimeoutMs());
+                    if (assignment != null && assignment.size() > 0) {
+                        return assignment;
+                    }
+                }
+                index.markBuilt(System.currentTimeMillis());
+                return endOfData();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+
+    /**
+     * a {@link CloseableIterator} computing its elements like an {@link AbstractIterator}.
+     */
+    protected abstract static class CloseableAbstractIterator<T> extends AbstractIterator<T>
+            implements CloseableIterator<T> {
+    }
+
+
+    /**
+     * list all consumer groups, the groups which are not listed any more are dropped from the index.
+     *
+     * @return
+     */
+    protected List<String> listGroups() {
+        List<String> groups = Lists.newArrayList();
+        for (GroupOverview go : JavaConversions.asJavaCollection(adminClient.listAllConsumerGroupsFlattened())) {
+            groups.add(go.groupId());
+        }
+        index.retain(groups);
+        return groups;
+    }
+
+
+    /**
+     * the timeout of describing a single group.
+     *
+     * @return
+     */
+    protected long describeTimeoutMs() {
+        return DESCRIBE_GROUP_TIMEOUT_MS;
+    }
+
+
+    /**
+     * 获取指定topic在所有group下的消息消费信息. Only the groups consuming the topic according to the
+     * index are described; the index is built with a full sweep the first time, and rebuilt with a full
+     * sweep every {@link #INDEX_RELIST_INTERVAL_MS} to pick up the new groups and the groups which
+     * started consuming the topic.
+     *
+     * @param topic
+     * @return
+     */
+    public List<ConsumerOffset> getConsumerGroupsByTopic(String topic) {
+        if (!topics.contains(topic)) {
+            return Lists.newArrayList();
+        }
+        List<GroupAssignment> assignments = Lists.newArrayList();
+        if (!index.isBuilt() || System.currentTimeMillis() - index.builtAtMs() > INDEX_RELIST_INTERVAL_MS) {
+            // the sweep already described every group, take the assignments of the topic from it
+            for (GroupAssignment assignment : describeGroups()) {
+                if (assignment.topics().contains(topic)) {
+                    assignments.add(assignment.filter(topic));
+                }
+            }
+            return resolveOffsets(assignments);
+        }
+        for (String group : index.groupsOf(topic)) {
+            GroupAssignment assignment = describeGroup(group, describeTimeoutMs());
+            if (assignment != null) {
+                assignments.add(assignment.filter(topic));
+            }
+        }
+        return resolveOffsets(assignments);
+    }
+
+
+    /**
+     * 获取指定group的消息消费信息, without describing any other group.
+     *
+     * @param group
+     * @return
+     */
+    public List<ConsumerOffset> getConsumerGroup(String group) {
+        GroupAssignment assignment = describeGroup(group, describeTimeoutMs());
+        if (assignment == null) {
+            return Lists.newArrayList();
+        }
+        return resolveOffsets(Collections.singletonList(assignment));
+    }
+
+
+    /**
+     * @return the topic->groups and group->topics index of the configured topics
+     */
+    public ConsumerGroupIndex getIndex() {
+        return index;
+    }
+
+
+    /**
+     * 获取指定group的分区分配情况以及已提交的offset, committed offsets are fetched with one request.
+     *
+     * @param group
+     * @param timeoutMs
+     * @return null if the group does not exist or is rebalancing
+     */
+    protected GroupAssignment describeGroup(String group, long timeoutMs) {
+        AdminClient.ConsumerGroupSummary consumerSummaries = adminClient
+                .describeConsumerGroup(group, timeoutMs);
+
+        if (consumerSummaries.consumers().isEmpty()) {
+            logger.warn("Consumer group " + group + " does not exist or is rebalancing.");
+            index.remove(group);
+            return null;
+        }
+        Collection<AdminClient.ConsumerSummary> summaries = JavaConversions.asJavaCollection(consumerSummaries.consumers().get());
+
+        //获取group下所有分区已提交的offset
+        Map<TopicPartition, Object> committed = JavaConversions.mapAsJavaMap(adminClient.listGroupOffsets(group));
+
+        GroupAssignment assignment = new GroupAssignment(group);
+        for (AdminClient.ConsumerSummary summary : summaries) {
+            for (TopicPartition tp : JavaConversions.asJavaCollection(summary.assignment())) {
+                if (!preCheck(tp)) {
+                    continue;
+                }
+                Object offset = committed.get(tp);
+                if (offset == null || ((Number) offset).longValue() < 0) {
+                    logger.debug(group + " has no offset on " + tp + ", consumer = " + summary.consumerId());
+                    continue;
+                }
+                assignment.add(tp, ((Number) offset).longValue(), summary.consumerId() + "_" + summary.host());
+            }
+        }
+        index.update(group, assignment.topics());
+        return assignment;
+    }
+
+
+    /**
+     * 批量获取所有分区的LEO和LSO, 并组装结果
+     *
+     * @param assignments
+     * @return
+     */
+    protected List<ConsumerOffset> resolveOffsets(List<GroupAssignment> assignments) {
+        List<ConsumerOffset> offsetList = resolveTable(assignments).toConsumerOffsets();
+        if (timeLagEstimator != null && !offsetList.isEmpty()) {
+            timeLagEstimator.update(consumer(), offsetList, System.currentTimeMillis());
+        }
+        return offsetList;
+    }
+
+
+    /**
+     * 获取消息信息, as a columnar table which is much cheaper than a list of {@link ConsumerOffset}
+     * when there are many partitions.
+     *
+     * @return
+     */
+    public ConsumerOffsetTable getConsumerGroupTable() {
+        ConsumerOffsetTable table = resolveTable(describeGroups());
+        if (timeLagEstimator != null && table.size() > 0) {
+            timeLagEstimator.update(consumer(), table, System.currentTimeMillis());
+        }
+        return table;
+    }
+
+
+    /**
+     * 批量获取所有分区的LEO和LSO, 并组装为列式结果
+     *
+     * @param assignments
+     * @return
+     */
+    protected ConsumerOffsetTable resolveTable(List<GroupAssignment> assignments) {
+        Set<TopicPartition> partitions = Sets.newHashSet();
+        int rows = 0;
+        for (GroupAssignment assignment : assignments) {
+            partitions.addAll(assignment.partitions);
+            rows += assignment.size();
+        }
+        ConsumerOffsetTable table = new ConsumerOffsetTable(rows, System.currentTimeMillis());
+        if (partitions.isEmpty()) {
+            return table;
+        }
+
+        Map<TopicPartition, Long> logEndOffsets = consumer().endOffsets(partitions);
+        Map<TopicPartition, Long> logStartOffsets = consumer().beginningOffsets(partitions);
+
+        for (GroupAssignment assignment : assignments) {
+            for (int i = 0; i < assignment.size(); i++) {
+                TopicPartition tp = assignment.partitions.get(i);
+                Long logEndOffset = logEndOffsets.get(tp);
+                Long logStartOffset = logStartOffsets.get(tp);
+                if (logEndOffset == null || logStartOffset == null) {
+                    logger.warn("Failed to get log offsets of " + tp + ", skip it.");
+                    continue;
+                }
+                table.add(assignment.group, tp.topic(), tp.partition(), assignment.offsets.get(i),
+                        logEndOffset, logStartOffset, assignment.consumerIds.get(i));
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * Fill {@link ConsumerOffset#getTimeLagMs()} of every sweep with the given estimator.
+     *
+     * @param timeLagEstimator
+     */
+    public void setTimeLagEstimator(TimeLagEstimator timeLagEstimator) {
+        this.timeLagEstimator = timeLagEstimator;
+    }
+
+
+    /**
+     * 返回consumer实例, the consumer is created once and reused by every sweep.
+     *
+     * @return
+     */
+    private KafkaConsumer<byte[], byte[]> consumer() {
+        if (consumer == null) {
+            consumer = getKafkaConsumer(bootstrapServers);
+        }
+        return consumer;
+    }
 
 
     /**
      * 返回consumer实例
      *
      * @param bootstrapServers
-     * @param groupId
      * @return
      */
-    private KafkaConsumer<byte[], byte[]> getKafkaConsumer(String bootstrapServers, String groupId) {
+    private KafkaConsumer<byte[], byte[]> getKafkaConsumer(String bootstrapServers) {
 
         Properties properties = new Properties();
         properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
         properties.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000");
         properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
@@ -105,63 +448,70 @@ public class ConsumerGroupBackingStore implements OffsetBackingStore {
     private boolean preCheck(TopicPartition tp) {
         boolean passed = true;
 
-        if (!topicList.contains(tp.topic())) {
+        if (!topics.contains(tp.topic())) {
             logger.warn(tp.topic() + " is deleted, skip to get it's offsets.");
             passed = false;
         }
         return passed;
     }
 
+
     /**
-     * 获取指定group中的consumer消费信息的offset
-     *
-     * @param group
-     * @return
+     * the assigned partitions and committed offsets of a single group.
      */
-    private List<ConsumerOffset> getOffsets(String group) {
-        List<ConsumerOffset> offsetList = Lists.newArrayList();
-        KafkaConsumer<?, ?> consumer = null;
+    protected static class GroupAssignment {
 
-        AdminClient.ConsumerGroupSummary consumerSummaries = adminClient
-                .describeConsumerGroup(group, 100);
+        private final String group;
 
-        Collection<AdminClient.ConsumerSummary> summaries = JavaConversions.asJavaCollection(consumerSummaries.consumers().get());
+        private final List<TopicPartition> partitions = Lists.newArrayList();
 
-        if (summaries == null) {
-            System.out.println(("Consumer group " + group + " does not exist or is rebalancing."));
-        } else {
-            consumer = getKafkaConsumer(bootstrapServers, group);
-            for (AdminClient.ConsumerSummary summary : summaries) {
-                for (TopicPartition tp : JavaConversions.asJavaCollection(summary.assignment())) {
-                    if (!preCheck(tp)) {
-                        continue;
-                    }
-                    //获取Offset的元数据信息
-                    OffsetAndMetadata oam = consumer.committed(tp);
-                    if (oam == null) {
-                        System.out.println(group + " has no offset on " + tp + ", consumer = " + summary.consumerId());
-                        continue;
-                    }
-                    //当前topic消费的offset
-                    long offset = oam.offset();
-                    consumer.assign(Lists.newArrayList(tp));
-
-                    long logEndOffset = consumer.endOffsets(Lists.newArrayList(tp)).get(tp);
-                    long logStartOffset = consumer.beginningOffsets(Lists.newArrayList(tp)).get(tp);
-//                    consumer.seekToEnd(Lists.newArrayList(tp));
-//                    //topic的LEO
-//                    long logEndOffset = consumer.position(tp);
-//                    consumer.seekToBeginning(Lists.newArrayList(tp));
-//                    //topic的LSO
-//                    long logStartOffset = consumer.position(tp);
-                    ConsumerOffset consumerOffset = new ConsumerOffset(group, tp.topic(), tp.partition(),
-                            offset, logEndOffset, logStartOffset, summary.consumerId() + "_" + summary.host());
-                    offsetList.add(consumerOffset);
+        private final List<Long> offsets = Lists.newArrayList();
+
+        private final List<String> consumerIds = Lists.newArrayList();
+
+        public GroupAssignment(String group) {
+            this.group = group;
+        }
+
+        public void add(TopicPartition tp, long offset, String consumerId) {
+            partitions.add(tp);
+            offsets.add(offset);
+            consumerIds.add(consumerId);
+        }
+
+        public String group() {
+            return group;
+        }
+
+        public List<TopicPartition> partitions() {
+            return partitions;
+        }
+
+        public int size() {
+            return partitions.size();
+        }
+
+        public Set<String> topics() {
+            Set<String> topics = Sets.newHashSet();
+            for (TopicPartition tp : partitions) {
+                topics.add(tp.topic());
+            }
+            return topics;
+        }
+
+        /**
+         * @param topic
+         * @return the assignment of the given topic only
+         */
+        public GroupAssignment filter(String topic) {
+            GroupAssignment filtered = new GroupAssignment(group);
+            for (int i = 0; i < partitions.size(); i++) {
+                if (partitions.get(i).topic().equals(topic)) {
+                    filtered.add(partitions.get(i), offsets.get(i), consumerIds.get(i));
                 }
             }
-            consumer.close();
+            return filtered;
         }
-        return offsetList;
     }
 
 
@@ -0,0 +1,146 @@
+package com.unistack.tamboo.message.kafka.storage;
+
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * topic->groups and group->topics的索引, refreshed every time a group is described, so that the lag of
+ * a single topic or group can be resolved without describing unrelated groups. Thread safe.
+ */
+public class ConsumerGroupIndex {
+
+    private final ConcurrentMap<String, Set<String>> groupsByTopic = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Set<String>> topicsByGroup = new ConcurrentHashMap<>();
+
+    /**
+     * when the last complete sweep was indexed, -1 if none was
+     */
+    private volatile long builtAtMs = -1L;
+
+
+    /**
+     * replace the topics consumed by a group.
+     *
+     * @param group
+     * @param topics
+     */
+    public void update(String group, Set<String> topics) {
+        Set<String> previous = topicsByGroup.put(group, Collections.unmodifiableSet(Sets.newHashSet(topics)));
+        if (previous != null) {
+            for (String topic : previous) {
+                if (!topics.contains(topic)) {
+                    unlink(topic, group);
+                }
+            }
+        }
+        for (String topic : topics) {
+            groupsByTopic.compute(topic, (t, groups) -> {
+                Set<String> linked = groups == null ? Sets.newConcurrentHashSet() : groups;
+                linked.add(group);
+                return linked;
+            });
+        }
+    }
+
+
+    /**
+     * drop a group which does not exist or has nothing assigned.
+     *
+     * @param group
+     */
+    public void remove(String group) {
+        Set<String> previous = topicsByGroup.remove(group);
+        if (previous != null) {
+            for (String topic : previous) {
+                unlink(topic, group);
+            }
+        }
+    }
+
+
+    /**
+     * drop every group which is not listed any more.
+     *
+     * @param groups all the groups of the cluster
+     */
+    public void retain(Collection<String> groups) {
+        Set<String> listed = Sets.newHashSet(groups);
+        for (String group : topicsByGroup.keySet()) {
+            if (!listed.contains(group)) {
+                remove(group);
+            }
+        }
+    }
+
+
+    /**
+     * mark the index as built, once every listed group has been described.
+     *
+     * @param nowMs
+     */
+    public void markBuilt(long nowMs) {
+        builtAtMs = nowMs;
+    }
+
+
+    /**
+     * @param topic
+     * @return the groups consuming the topic
+     */
+    public Set<String> groupsOf(String topic) {
+        Set<String> groups = groupsByTopic.get(topic);
+        return groups == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(groups);
+    }
+
+
+    /**
+     * @param group
+     * @return the topics consumed by the group
+     */
+    public Set<String> topicsOf(String group) {
+        Set<String> topics = topicsByGroup.get(group);
+        return topics == null ? Collections.<String>emptySet() : topics;
+    }
+
+
+    /**
+     * @return true once a whole sweep has been indexed
+     */
+    public boolean isBuilt() {
+        return builtAtMs >= 0;
+    }
+
+
+    /**
+     * @return when the last whole sweep was indexed, -1 if none was
+     */
+    public long builtAtMs() {
+        return builtAtMs;
+    }
+
+
+    /**
+     * @param group
+     * @return if the group has been described, whatever it consumes
+     */
+    public boolean contains(String group) {
+        return topicsByGroup.containsKey(group);
+    }
+
+
+    private void unlink(String topic, String group) {
+        groupsByTopic.computeIfPresent(topic, (t, groups) -> {
+            groups.remove(group);
+            return groups.isEmpty() ? null : groups;
+        });
+    }
+}
@@ -0,0 +1,238 @@
+package com.unistack.tamboo.message.kafka.storage;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.util.CommonUtils;
+import com.unistack.tamboo.message.kafka.util.ConfigHelper;
+import com.unistack.tamboo.message.kafka.util.KafkaTopicBaseLog;
+import kafka.coordinator.group.BaseKey;
+import kafka.coordinator.group.GroupMetadataKey;
+import kafka.coordinator.group.GroupMetadataManager;
+import kafka.coordinator.group.GroupTopicPartition;
+import kafka.coordinator.group.OffsetKey;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.internals.Topic;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A {@link OffsetBackingStore} which keeps the committed offsets of all groups up to date by tailing
+ * the internal {@value Topic#GROUP_METADATA_TOPIC_NAME} topic, instead of asking every coordinator.
+ * Every offset commit updates an in-memory index as it arrives, so the committed offsets of any group
+ * are available without a coordinator round-trip; only the log-end and log-start offsets are fetched,
+ * with one batched request per call.
+ * <p>
+ * The consumer id of the members is not part of the offset commits, so it is always empty.
+ */
+public class ConsumerOffsetsTopicBackingStore implements OffsetBackingStore {
+
+    public static final Logger log = LoggerFactory.getLogger(ConsumerOffsetsTopicBackingStore.class);
+
+    private final String bootstrapServers;
+
+    private final Set<String> topics;
+
+    private final KafkaTopicBaseLog<byte[], byte[]> offsetsLog;
+
+    /**
+     * group -> partition -> committed offset
+     */
+    private final ConcurrentMap<String, ConcurrentMap<TopicPartition, Long>> committed = Maps.newConcurrentMap();
+
+    private KafkaConsumer<byte[], byte[]> consumer;
+
+    private volatile boolean started = false;
+
+
+    public ConsumerOffsetsTopicBackingStore(String bootstrapServers, List<String> topicNames) {
+        this.bootstrapServers = bootstrapServers;
+        this.topics = Sets.newHashSet(topicNames);
+
+        Map<String, Object> consumerProps = Maps.newHashMap();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.EXCLUDE_INTERNAL_TOPICS_CONFIG, false);
+        consumerProps.putAll(ConfigHelper.toMap(CommonUtils.getSecurityProps(bootstrapServers)));
+
+        Callback<ConsumerRecord<byte[], byte[]>> readCallback = new Callback<ConsumerRecord<byte[], byte[]>>() {
+            @Override
+            public void onCompletion(Throwable error, ConsumerRecord<byte[], byte[]> record) {
+                read(record);
+            }
+        };
+        // no consumer group: committing the position would itself append to the offsets topic
+        this.offsetsLog = new KafkaTopicBaseLog<>(consumerProps, readCallback, Topic.GROUP_METADATA_TOPIC_NAME,
+                Time.SYSTEM);
+    }
+
+
+    /**
+     * Read the offsets topic to the end and keep tailing it in the background.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        offsetsLog.start();
+        started = true;
+    }
+
+
+    @Override
+    public List<ConsumerOffset> getConsumerGroups() {
+        start();
+        Map<String, Map<TopicPartition, Long>> offsets = Maps.newHashMap();
+        for (Map.Entry<String, ConcurrentMap<TopicPartition, Long>> entry : committed.entrySet()) {
+            offsets.put(entry.getKey(), Maps.newHashMap(entry.getValue()));
+        }
+        return toConsumerOffsets(offsets);
+    }
+
+
+    /**
+     * 获取指定group的消息消费信息
+     *
+     * @param group
+     * @return
+     */
+    public List<ConsumerOffset> getConsumerGroup(String group) {
+        start();
+        Map<TopicPartition, Long> offsets = committed.get(group);
+        if (offsets == null) {
+            return Collections.emptyList();
+        }
+        return toConsumerOffsets(Collections.singletonMap(group, Maps.newHashMap(offsets)));
+    }
+
+
+    /**
+     * @param group
+     * @param tp
+     * @return the latest committed offset of the group on the partition, or null if there is none
+     */
+    public Long committedOffset(String group, TopicPartition tp) {
+        start();
+        Map<TopicPartition, Long> offsets = committed.get(group);
+        return offsets == null ? null : offsets.get(tp);
+    }
+
+
+    private synchronized List<ConsumerOffset> toConsumerOffsets(Map<String, Map<TopicPartition, Long>> offsets) {
+        Set<TopicPartition> partitions = Sets.newHashSet();
+        for (Map<TopicPartition, Long> groupOffsets : offsets.values()) {
+            partitions.addAll(groupOffsets.keySet());
+        }
+        if (partitions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<TopicPartition, Long> logEndOffsets = consumer().endOffsets(partitions);
+        Map<TopicPartition, Long> logStartOffsets = consumer().beginningOffsets(partitions);
+
+        List<ConsumerOffset> offsetList = Lists.newArrayList();
+        for (Map.Entry<String, Map<TopicPartition, Long>> groupOffsets : offsets.entrySet()) {
+            for (Map.Entry<TopicPartition, Long> entry : groupOffsets.getValue().entrySet()) {
+                TopicPartition tp = entry.getKey();
+                Long logEndOffset = logEndOffsets.get(tp);
+                Long logStartOffset = logStartOffsets.get(tp);
+                if (logEndOffset == null || logStartOffset == null) {
+                    continue;
+                }
+                offsetList.add(new ConsumerOffset(groupOffsets.getKey(), tp.topic(), tp.partition(),
+                        entry.getValue(), logEndOffset, logStartOffset, ""));
+            }
+        }
+        return offsetList;
+    }
+
+
+    /**
+     * decode an offset commit or a group metadata record of the offsets topic.
+     *
+     * @param record
+     */
+    private void read(ConsumerRecord<byte[], byte[]> record) {
+        if (record.key() == null) {
+            return;
+        }
+        BaseKey key;
+        try {
+            key = GroupMetadataManager.readMessageKey(ByteBuffer.wrap(record.key()));
+        } catch (Exception e) {
+            log.warn("Discarding record with invalid key at offset {} of {}", record.offset(), record.topic());
+            return;
+        }
+
+        if (key instanceof OffsetKey) {
+            GroupTopicPartition gtp = ((OffsetKey) key).key();
+            TopicPartition tp = gtp.topicPartition();
+            if (!topics.contains(tp.topic())) {
+                return;
+            }
+            if (record.value() == null) {
+                ConcurrentMap<TopicPartition, Long> offsets = committed.get(gtp.group());
+                if (offsets != null) {
+                    offsets.remove(tp);
+                }
+                return;
+            }
+            long offset;
+            try {
+                offset = GroupMetadataManager.readOffsetMessageValue(ByteBuffer.wrap(record.value())).offset();
+            } catch (Exception e) {
+                log.warn("Discarding record with invalid value at offset {} of {}", record.offset(), record.topic());
+                return;
+            }
+            committed.computeIfAbsent(gtp.group(), g -> Maps.newConcurrentMap()).put(tp, offset);
+        } else if (key instanceof GroupMetadataKey && record.value() == null) {
+            // the group has been deleted or expired
+            committed.remove(((GroupMetadataKey) key).key());
+        }
+    }
+
+
+    private KafkaConsumer<byte[], byte[]> consumer() {
+        if (consumer == null) {
+            Map<String, Object> props = Maps.newHashMap();
+            props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+            props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+            props.putAll(ConfigHelper.toMap(CommonUtils.getSecurityProps(bootstrapServers)));
+            consumer = new KafkaConsumer<>(props);
+        }
+        return consumer;
+    }
+
+
+    @Override
+    public synchronized void close() {
+        if (started) {
+            offsetsLog.stop();
+            started = false;
+        }
+        if (consumer != null) {
+            consumer.close();
+            consumer = null;
+        }
+    }
+}
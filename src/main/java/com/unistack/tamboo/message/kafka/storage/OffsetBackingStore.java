@@ -1,5 +1,6 @@
 package com.unistack.tamboo.message.kafka.storage;
 
+import com.unistack.tamboo.message.kafka.bean.Callback;
 import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
 import org.apache.kafka.common.config.types.Password;
 
@@ -19,6 +20,26 @@ public interface OffsetBackingStore {
      */
     List<ConsumerOffset> getConsumerGroups();
 
+    /**
+     * 流式获取所有group的消息消费信息: the offsets of every group are handed to the callback as soon
+     * as the group is resolved, so nothing waits for the whole sweep. The method returns when the sweep
+     * is done; if the sweep fails the callback is invoked once more with the error.
+     * <p>
+     * The default implementation hands over the whole sweep at once.
+     *
+     * @param callback invoked once per group with its offsets
+     */
+    default void getConsumerGroups(Callback<List<ConsumerOffset>> callback) {
+        List<ConsumerOffset> offsets;
+        try {
+            offsets = getConsumerGroups();
+        } catch (Exception e) {
+            callback.onCompletion(e, null);
+            return;
+        }
+        callback.onCompletion(null, offsets);
+    }
+
     /**
      * adminClient连接关闭
      */
@@ -0,0 +1,389 @@
+package com.unistack.tamboo.message.kafka.storage;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import kafka.coordinator.group.GroupOverview;
+import org.apache.kafka.common.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.collection.JavaConversions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A {@link ConsumerGroupBackingStore} which describes the consumer groups concurrently.
+ * Groups are grouped by their coordinator broker, and the groups of one coordinator are
+ * split into lanes which are described one after another, so that every coordinator is kept
+ * busy without being flooded. The number of lanes running at the same time is bounded by
+ * the parallelism, and every group is bounded by its own timeout.
+ */
+public class ParallelConsumerGroupBackingStore extends ConsumerGroupBackingStore {
+
+    public static final Logger log = LoggerFactory.getLogger(ParallelConsumerGroupBackingStore.class);
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    public static final long DEFAULT_GROUP_TIMEOUT_MS = 5000;
+
+    /**
+     * queued by a lane of the streaming sweep when it is done
+     */
+    private static final GroupAssignment LANE_DONE = new GroupAssignment(null);
+
+    /**
+     * described, but the group does not exist or is rebalancing
+     */
+    private static final GroupAssignment NO_ASSIGNMENT = new GroupAssignment(null);
+
+    /**
+     * how often the running lanes are checked for their timeout
+     */
+    private static final long MAX_CHECK_INTERVAL_MS = 100;
+
+    /**
+     * how long a lane of the streaming sweep waits for the caller to consume its results before giving
+     * up, in case the iterator is dropped without being closed
+     */
+    public static final long ABANDONED_TIMEOUT_MS = 60000;
+
+    private final int parallelism;
+
+    private final long groupTimeoutMs;
+
+    private final ExecutorService executor;
+
+    private volatile List<String> skippedGroups = Collections.emptyList();
+
+
+    public ParallelConsumerGroupBackingStore(String bootstrapServers, List<String> topicNames) {
+        this(bootstrapServers, topicNames, DEFAULT_PARALLELISM, DEFAULT_GROUP_TIMEOUT_MS);
+    }
+
+    /**
+     * @param bootstrapServers
+     * @param topicNames
+     * @param parallelism      the max number of groups described at the same time; must be positive
+     * @param groupTimeoutMs   the max time spent on describing a single group; must be positive
+     */
+    public ParallelConsumerGroupBackingStore(String bootstrapServers, List<String> topicNames,
+                                             int parallelism, long groupTimeoutMs) {
+        super(bootstrapServers, topicNames);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+        }
+        if (groupTimeoutMs <= 0) {
+            throw new IllegalArgumentException("groupTimeoutMs must be positive, but was " + groupTimeoutMs);
+        }
+        this.parallelism = parallelism;
+        this.groupTimeoutMs = groupTimeoutMs;
+        this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("consumer-group-describe-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+
+    @Override
+    protected List<GroupAssignment> describeGroups() {
+        List<String> groups = Lists.newArrayList();
+        List<Lane> lanes = planLanes(groups);
+
+        // keep the results in the order of the listed groups, whatever the completion order is
+        AtomicReferenceArray<GroupAssignment> results = new AtomicReferenceArray<>(groups.size());
+        for (Lane lane : lanes) {
+            lane.future = executor.submit(() -> {
+                for (Integer index : lane.indexes) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    GroupAssignment assignment = lane.describe(groups.get(index));
+                    if (assignment != null) {
+                        results.set(index, assignment);
+                    }
+                }
+            });
+        }
+
+        awaitLanes(lanes);
+
+        List<GroupAssignment> assignments = Lists.newArrayList();
+        List<String> skipped = Lists.newArrayList();
+        for (int i = 0; i < results.length(); i++) {
+            GroupAssignment assignment = results.get(i);
+            if (assignment == null) {
+                skipped.add(groups.get(i));
+            } else if (assignment != NO_ASSIGNMENT) {
+                assignments.add(assignment);
+            }
+        }
+        reportSkipped(skipped);
+        return assignments;
+    }
+
+
+    /**
+     * wait for the lanes, cancelling every lane whose current group takes longer than the group timeout.
+     * Only the group being described is timed, so the lanes queued behind the parallelism are not penalized.
+     */
+    private void awaitLanes(List<Lane> lanes) {
+        long pollMs = Math.min(groupTimeoutMs, MAX_CHECK_INTERVAL_MS);
+        for (Lane lane : lanes) {
+            while (!lane.future.isDone()) {
+                try {
+                    lane.future.get(pollMs, TimeUnit.MILLISECONDS);
+                } catch (java.util.concurrent.TimeoutException e) {
+                    cancelExpired(lanes);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    for (Lane l : lanes) {
+                        l.future.cancel(true);
+                    }
+                    return;
+                } catch (Exception e) {
+                    log.error("Failed to describe consumer groups", e);
+                }
+            }
+        }
+    }
+
+
+    private void cancelExpired(List<Lane> lanes) {
+        long now = System.currentTimeMillis();
+        for (Lane lane : lanes) {
+            if (lane.isExpired(now) && lane.future.cancel(true)) {
+                log.warn("Timed out while describing a consumer group, skip the remaining groups of its lane of {}.",
+                        lane.indexes.size());
+            }
+        }
+    }
+
+
+    /**
+     * @param skipped the groups which could not be described, because they failed or timed out
+     */
+    private void reportSkipped(List<String> skipped) {
+        if (skipped.isEmpty()) {
+            index.markBuilt(System.currentTimeMillis());
+        } else {
+            log.warn("Skipped {} consumer group(s) which could not be described: {}", skipped.size(), skipped);
+        }
+        this.skippedGroups = Collections.unmodifiableList(skipped);
+    }
+
+
+    /**
+     * @return the groups the last sweep could not describe, because they failed or timed out; their
+     * offsets are missing from the result of the sweep
+     */
+    public List<String> getSkippedGroups() {
+        return skippedGroups;
+    }
+
+
+    /**
+     * the streaming variant: an assignment is handed over as soon as its group is described, in the
+     * order the groups complete. The lanes are blocked once {@code parallelism} described groups are
+     * waiting to be consumed, so memory is bounded by the groups in flight. Only the group being described
+     * is timed, not the time a lane is blocked on the caller. Closing the iterator, or a failure of
+     * the iterator, cancels the lanes still running.
+     */
+    @Override
+    protected CloseableIterator<GroupAssignment> describeGroupsLazily() {
+        final List<String> groups = Lists.newArrayList();
+        final List<Lane> lanes = planLanes(groups);
+        final BlockingQueue<GroupAssignment> queue = new LinkedBlockingQueue<>();
+        final Semaphore permits = new Semaphore(parallelism);
+        final AtomicIntegerArray described = new AtomicIntegerArray(groups.size());
+        for (Lane lane : lanes) {
+            lane.future = executor.submit(() -> {
+                try {
+                    for (Integer index : lane.indexes) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        GroupAssignment assignment = lane.describe(groups.get(index));
+                        if (assignment == null) {
+                            continue;
+                        }
+                        if (assignment.size() > 0) {
+                            boolean acquired;
+                            acquired = permits.tryAcquire(ABANDONED_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                            if (!acquired) {
+                                log.warn("The described consumer groups have not been consumed for {} ms," +
+                                        " abandon the remaining groups of the lane.", ABANDONED_TIMEOUT_MS);
+                                return;
+                            }
+                            queue.add(assignment);
+                        }
+                        described.set(index, 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    queue.add(LANE_DONE);
+                }
+            });
+        }
+
+        final long pollMs = Math.min(groupTimeoutMs, MAX_CHECK_INTERVAL_MS);
+        return new CloseableAbstractIterator<GroupAssignment>() {
+
+            private int runningLanes = lanes.size();
+
+            private boolean closed = false;
+
+            @Override
+            protected GroupAssignment computeNext() {
+                try {
+                    while (runningLanes > 0 && !closed) {
+                        GroupAssignment assignment = queue.poll(pollMs, TimeUnit.MILLISECONDS);
+                        if (assignment == null) {
+                            cancelExpired(lanes);
+                            continue;
+                        }
+                        if (assignment == LANE_DONE) {
+                            runningLanes--;
+                            continue;
+                        }
+                        permits.release();
+                        return assignment;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    return endOfData();
+                } catch (RuntimeException e) {
+                    close();
+                    throw e;
+                }
+                if (!closed) {
+                    List<String> skipped = Lists.newArrayList();
+                    for (int i = 0; i < described.length(); i++) {
+                        if (described.get(i) == 0) {
+                            skipped.add(groups.get(i));
+                        }
+                    }
+                    reportSkipped(skipped);
+                }
+                return endOfData();
+            }
+
+            @Override
+            public void close() {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                for (Lane lane : lanes) {
+                    lane.future.cancel(true);
+                }
+            }
+        };
+    }
+
+
+    /**
+     * group the consumer groups by their coordinator and split the groups of every coordinator into lanes.
+     *
+     * @param groups filled with the listed groups, the lanes refer to them by index
+     * @return the lanes, with the indexes of their groups
+     */
+    private List<Lane> planLanes(List<String> groups) {
+        Map<Node, scala.collection.immutable.List<GroupOverview>> groupsByCoordinator =
+                JavaConversions.mapAsJavaMap(adminClient.listAllConsumerGroups());
+
+        List<Lane> lanes = Lists.newArrayList();
+        int lanesPerCoordinator = Math.max(1, parallelism / Math.max(1, groupsByCoordinator.size()));
+
+        for (scala.collection.immutable.List<GroupOverview> overviews : groupsByCoordinator.values()) {
+            List<Lane> coordinatorLanes = Lists.newArrayList();
+            int i = 0;
+            for (GroupOverview go : JavaConversions.asJavaCollection(overviews)) {
+                if (coordinatorLanes.size() < lanesPerCoordinator) {
+                    coordinatorLanes.add(new Lane());
+                }
+                coordinatorLanes.get(i++ % lanesPerCoordinator).indexes.add(groups.size());
+                groups.add(go.groupId());
+            }
+            lanes.addAll(coordinatorLanes);
+        }
+        index.retain(groups);
+        return lanes;
+    }
+
+
+    @Override
+    protected long describeTimeoutMs() {
+        return groupTimeoutMs;
+    }
+
+
+    /**
+     * @return {@link #NO_ASSIGNMENT} if the group does not exist or is rebalancing, null if it failed
+     */
+    private GroupAssignment describeGroupQuietly(String group) {
+        try {
+            GroupAssignment assignment = describeGroup(group, describeTimeoutMs());
+            return assignment == null ? NO_ASSIGNMENT : assignment;
+        } catch (Exception e) {
+            log.warn("Failed to describe consumer group " + group + ", skip it.", e);
+            return null;
+        }
+    }
+
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        super.close();
+    }
+
+
+    /**
+     * groups of one coordinator, described one after another by a single task.
+     */
+    private class Lane {
+
+        private final List<Integer> indexes = Lists.newArrayList();
+
+        /**
+         * when the group being described was started, -1 between the groups
+         */
+        private volatile long groupStartedMs = -1L;
+
+        private Future<?> future;
+
+
+        GroupAssignment describe(String group) {
+            groupStartedMs = System.currentTimeMillis();
+            try {
+                return describeGroupQuietly(group);
+            } finally {
+                groupStartedMs = -1L;
+            }
+        }
+
+
+        /**
+         * @return if the group being described has taken longer than its timeout
+         */
+        boolean isExpired(long nowMs) {
+            long started = groupStartedMs;
+            return started >= 0 && !future.isDone() && nowMs - started > groupTimeoutMs;
+        }
+    }
+}
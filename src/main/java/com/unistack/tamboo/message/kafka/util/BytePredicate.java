@@ -0,0 +1,32 @@
+package com.unistack.tamboo.message.kafka.util;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A predicate tested directly on the raw bytes of a record, see {@link BytePredicates} for the
+ * implementations. Must be thread safe, a predicate is tested on several partitions at the same time.
+ */
+public interface BytePredicate {
+
+    /**
+     * @param bytes the bytes to test, never null
+     * @return true if the bytes match
+     */
+    boolean test(byte[] bytes);
+
+
+    default BytePredicate and(BytePredicate other) {
+        return bytes -> test(bytes) && other.test(bytes);
+    }
+
+
+    default BytePredicate or(BytePredicate other) {
+        return bytes -> test(bytes) || other.test(bytes);
+    }
+
+
+    default BytePredicate negate() {
+        return bytes -> !test(bytes);
+    }
+}
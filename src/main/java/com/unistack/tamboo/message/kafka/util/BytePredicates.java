@@ -0,0 +1,189 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * {@link BytePredicate}s which never decode the whole record into a String:
+ * <ul>
+ * <li>{@link #contains(String)}: Boyer-Moore-Horspool search of the UTF-8 bytes;</li>
+ * <li>{@link #matches(String)}: the regex runs on a {@link CharSequence} view of the bytes, one char per
+ * byte, so it is meant for ASCII patterns;</li>
+ * <li>{@link #jsonPathEquals(String, String)}: streams the JSON tokens up to the path and skips the
+ * other fields; the bytes are first searched for the expected value when it needs no escaping.</li>
+ * </ul>
+ */
+public final class BytePredicates {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+
+    private BytePredicates() {
+    }
+
+
+    /**
+     * @param text
+     * @return a predicate matching the bytes which contain the UTF-8 encoding of the text
+     */
+    public static BytePredicate contains(String text) {
+        final byte[] pattern = text.getBytes(StandardCharsets.UTF_8);
+        final int[] skip = skipTable(pattern);
+        return bytes -> indexOf(bytes, pattern, skip) >= 0;
+    }
+
+
+    /**
+     * @param regex
+     * @return a predicate matching the bytes in which the regex is found
+     */
+    public static BytePredicate matches(String regex) {
+        final Pattern pattern = Pattern.compile(regex);
+        return bytes -> pattern.matcher(new ByteCharSequence(bytes, 0, bytes.length)).find();
+    }
+
+
+    /**
+     * @param path     the fields of nested objects, e.g. {@code $.order.id} or {@code order.id}
+     * @param expected the text of the scalar value, e.g. {@code 42}, {@code true} or an unquoted string
+     * @return a predicate matching the JSON objects whose value at the path equals the expected text
+     */
+    public static BytePredicate jsonPathEquals(String path, final String expected) {
+        String trimmed = path.startsWith("$.") ? path.substring(2) : path;
+        final String[] fields = StringUtils.split(trimmed, '.');
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("Invalid json path " + path);
+        }
+        final BytePredicate prefilter = needsNoEscaping(expected) && !expected.isEmpty() ? contains(expected) : null;
+        return bytes -> (prefilter == null || prefilter.test(bytes)) && jsonPathEquals(bytes, fields, expected);
+    }
+
+
+    private static boolean jsonPathEquals(byte[] bytes, String[] fields, String expected) {
+        try (JsonParser parser = JSON_FACTORY.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            int level = 0;
+            while (true) {
+                JsonToken token = parser.nextToken();
+                if (token != JsonToken.FIELD_NAME) {
+                    // the end of the object on the path, the field is not there
+                    return false;
+                }
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!fields[level].equals(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (level == fields.length - 1) {
+                    return value.isScalarValue() && expected.equals(parser.getText());
+                }
+                if (value != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                level++;
+            }
+        } catch (IOException e) {
+            // not a json object
+            return false;
+        }
+    }
+
+
+    private static boolean needsNoEscaping(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\' || c == '/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static int[] skipTable(byte[] pattern) {
+        int[] skip = new int[256];
+        Arrays.fill(skip, pattern.length);
+        for (int i = 0; i < pattern.length - 1; i++) {
+            skip[pattern[i] & 0xff] = pattern.length - 1 - i;
+        }
+        return skip;
+    }
+
+
+    /**
+     * Boyer-Moore-Horspool.
+     *
+     * @return the index of the first occurrence of the pattern, -1 if there is none
+     */
+    static int indexOf(byte[] bytes, byte[] pattern, int[] skip) {
+        int m = pattern.length;
+        if (m == 0) {
+            return 0;
+        }
+        int last = m - 1;
+        int i = 0;
+        while (i <= bytes.length - m) {
+            int j = last;
+            while (bytes[i + j] == pattern[j]) {
+                if (j == 0) {
+                    return i;
+                }
+                j--;
+            }
+            i += skip[bytes[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+
+    /**
+     * a view of bytes as chars, one char per byte (ISO-8859-1), without copying.
+     */
+    static final class ByteCharSequence implements CharSequence {
+
+        private final byte[] bytes;
+
+        private final int offset;
+
+        private final int length;
+
+        ByteCharSequence(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteCharSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
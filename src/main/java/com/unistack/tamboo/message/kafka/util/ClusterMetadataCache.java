@@ -0,0 +1,283 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.unistack.tamboo.message.kafka.bean.ClusterDescription;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * The metadata of a cluster kept in memory for {@link TopicAdmin}: the cluster id, the nodes and the
+ * controller, and the leader of every partition of every topic. Each part is reloaded once it is older
+ * than the ttl, by a single caller while the concurrent callers wait for its result, and can be
+ * invalidated, e.g. after creating or deleting topics.
+ */
+public class ClusterMetadataCache {
+
+    public static final Logger log = LoggerFactory.getLogger(ClusterMetadataCache.class);
+
+    public static final long DEFAULT_TTL_MS = 30 * 1000L;
+
+    private final AdminClient admin;
+
+    private final Loader<ClusterDescription> cluster;
+
+    private final Loader<Map<String, Map<Integer, Integer>>> leaders;
+
+    /**
+     * notified of every load of the cluster
+     */
+    private final Consumer<ClusterDescription> onClusterLoaded;
+
+
+    public ClusterMetadataCache(AdminClient admin) {
+        this(admin, DEFAULT_TTL_MS, description -> {
+        });
+    }
+
+    /**
+     * @param admin
+     * @param ttlMs
+     * @param onClusterLoaded notified of every load of the cluster, on the loading thread
+     */
+    public ClusterMetadataCache(AdminClient admin, long ttlMs, Consumer<ClusterDescription> onClusterLoaded) {
+        this.admin = admin;
+        this.onClusterLoaded = onClusterLoaded;
+        this.cluster = new Loader<>(this::loadCluster, ttlMs);
+        this.leaders = new Loader<>(this::loadLeaders, ttlMs);
+    }
+
+
+    /**
+     * @return the cluster id, the nodes and the controller
+     */
+    public ClusterDescription cluster() {
+        return cluster.get();
+    }
+
+
+    /**
+     * @return topic -> partition -> the id of the leader, -1 if the partition has none
+     */
+    public Map<String, Map<Integer, Integer>> leaders() {
+        return leaders.get();
+    }
+
+
+    /**
+     * @param topic
+     * @return partition -> the id of the leader, empty if the topic is unknown
+     */
+    public Map<Integer, Integer> leaders(String topic) {
+        Map<Integer, Integer> partitions = leaders.get().get(topic);
+        return partitions != null ? partitions : ImmutableMap.of();
+    }
+
+
+    public void invalidate() {
+        cluster.invalidate();
+        leaders.invalidate();
+    }
+
+
+    /**
+     * the topics changed, the nodes did not
+     */
+    public void invalidateTopics() {
+        leaders.invalidate();
+    }
+
+
+    private ClusterDescription loadCluster() {
+        DescribeClusterResult result = admin.describeCluster(new DescribeClusterOptions()
+                .timeoutMs(TopicAdmin.OPERATION_TIMEOUT));
+        ClusterDescription description = new ClusterDescription()
+                .defineForClusterId(get(result.clusterId(), "describe the cluster"))
+                .nodes(get(result.nodes(), "describe the cluster"))
+                .controller(get(result.controller(), "describe the cluster"))
+                .build();
+        log.debug("Loaded the metadata of cluster {}, {} node(s)", description.getClusterId(),
+                description.getClusterNode().size());
+        onClusterLoaded.accept(description);
+        return description;
+    }
+
+
+    private Map<String, Map<Integer, Integer>> loadLeaders() {
+        Set<String> topics = get(admin.listTopics(new ListTopicsOptions().listInternal(true)
+                .timeoutMs(TopicAdmin.OPERATION_TIMEOUT)).names(), "list the topics");
+        Map<String, KafkaFuture<TopicDescription>> descriptions = admin.describeTopics(topics,
+                new DescribeTopicsOptions().timeoutMs(TopicAdmin.OPERATION_TIMEOUT)).values();
+
+        ImmutableMap.Builder<String, Map<Integer, Integer>> layout = ImmutableMap.builder();
+        for (Map.Entry<String, KafkaFuture<TopicDescription>> entry : descriptions.entrySet()) {
+            TopicDescription description;
+            try {
+                description = entry.getValue().get();
+            } catch (ExecutionException e) {
+                // e.g. deleted since it was listed
+                log.debug("Failed to describe topic {}", entry.getKey(), e.getCause());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted while attempting to describe topics", e);
+            }
+            ImmutableMap.Builder<Integer, Integer> partitions = ImmutableMap.builder();
+            for (TopicPartitionInfo info : description.partitions()) {
+                Node leader = info.leader();
+                partitions.put(info.partition(), leader == null || leader.isEmpty() ? -1 : leader.id());
+            }
+            layout.put(entry.getKey(), partitions.build());
+        }
+        return layout.build();
+    }
+
+
+    private static <T> T get(KafkaFuture<T> future, String operation) {
+        try {
+            return future.get(TopicAdmin.OPERATION_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new ConnectException("Error while attempting to " + operation, e.getCause());
+        } catch (TimeoutException e) {
+            throw new ConnectException("Timed out while attempting to " + operation, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while attempting to " + operation, e);
+        }
+    }
+
+
+    /**
+     * a value reloaded once older than the ttl, by one caller at a time while the concurrent callers wait
+     * for its result. An invalidation drops the value and detaches the load in flight, so that the callers
+     * arriving afterwards start a fresh load; a caller whose load was invalidated meanwhile loads again.
+     */
+    public static class Loader<T> {
+
+        /**
+         * the max loads of a single call, when every load is invalidated before it completes
+         */
+        public static final int MAX_LOAD_ATTEMPTS = 3;
+
+        private final Supplier<T> supplier;
+
+        private final long ttlMs;
+
+        private volatile T value;
+
+        private volatile long loadedAtMs;
+
+        /**
+         * incremented by every invalidation, a load started before is not kept
+         */
+        private volatile long generation = 0L;
+
+        private CompletableFuture<T> loading;
+
+        private long loadingGeneration;
+
+
+        public Loader(Supplier<T> supplier, long ttlMs) {
+            this.supplier = supplier;
+            this.ttlMs = ttlMs;
+        }
+
+
+        public T get() {
+            for (int attempt = 1; ; attempt++) {
+                T current = value;
+                if (current != null && System.currentTimeMillis() - loadedAtMs < ttlMs) {
+                    return current;
+                }
+                CompletableFuture<T> future;
+                long startGeneration;
+                boolean owner = false;
+                synchronized (this) {
+                    current = value;
+                    if (current != null && System.currentTimeMillis() - loadedAtMs < ttlMs) {
+                        return current;
+                    }
+                    if (loading == null) {
+                        loading = new CompletableFuture<>();
+                        loadingGeneration = generation;
+                        owner = true;
+                    }
+                    future = loading;
+                    startGeneration = loadingGeneration;
+                }
+                T loaded = owner ? load(future, startGeneration) : join(future);
+                if (generation == startGeneration || attempt >= MAX_LOAD_ATTEMPTS) {
+                    return loaded;
+                }
+            }
+        }
+
+
+        public synchronized void invalidate() {
+            generation++;
+            value = null;
+            loading = null;
+        }
+
+
+        private T load(CompletableFuture<T> future, long startGeneration) {
+            try {
+                T loaded = supplier.get();
+                synchronized (this) {
+                    if (generation == startGeneration) {
+                        value = loaded;
+                        loadedAtMs = System.currentTimeMillis();
+                    }
+                    if (loading == future) {
+                        loading = null;
+                    }
+                }
+                future.complete(loaded);
+                return loaded;
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    if (loading == future) {
+                        loading = null;
+                    }
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+
+        private static <T> T join(CompletableFuture<T> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
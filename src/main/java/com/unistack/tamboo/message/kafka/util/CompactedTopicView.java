@@ -0,0 +1,195 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * The latest value of every key of a compacted topic, kept in memory. The topic is read to the end
+ * once on {@link #start()} and tailed in the background afterwards, so a lookup is a map get. Use
+ * {@link #readToEnd(long)} when a lookup must see everything written before it.
+ */
+public class CompactedTopicView implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(CompactedTopicView.class);
+
+    private final String topic;
+
+    private final KafkaTopicBaseLog<String, byte[]> topicLog;
+
+    private final ConcurrentMap<String, byte[]> values = new ConcurrentHashMap<>();
+
+    /**
+     * lower cased key -> key, for the case insensitive lookups
+     */
+    private final ConcurrentMap<String, String> keysIgnoreCase = new ConcurrentHashMap<>();
+
+    private boolean started = false;
+
+
+    public CompactedTopicView(String bootstrapServers, String topic) {
+        this.topic = topic;
+        Map<String, Object> securityProps = ConfigHelper.toMap(CommonUtils.getSecurityProps(bootstrapServers));
+
+        Map<String, Object> consumerProps = Maps.newHashMap();
+        consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        consumerProps.putAll(securityProps);
+
+        Callback<ConsumerRecord<String, byte[]>> readCallback = new Callback<ConsumerRecord<String, byte[]>>() {
+            @Override
+            public void onCompletion(Throwable error, ConsumerRecord<String, byte[]> record) {
+                read(record);
+            }
+        };
+        this.topicLog = new KafkaTopicBaseLog<>(consumerProps, readCallback, topic, Time.SYSTEM);
+    }
+
+
+    /**
+     * read the topic to the end and keep tailing it in the background.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        topicLog.start();
+        started = true;
+    }
+
+
+    /**
+     * @param key
+     * @return the latest value of the key, or null if there is none
+     */
+    public byte[] get(String key) {
+        return values.get(key);
+    }
+
+
+    /**
+     * @param key
+     * @return the latest value of the key ignoring its case, or null if there is none
+     */
+    public byte[] getIgnoreCase(String key) {
+        byte[] value = values.get(key);
+        if (value != null) {
+            return value;
+        }
+        String actual = keysIgnoreCase.get(key.toLowerCase(Locale.ROOT));
+        return actual == null ? null : values.get(actual);
+    }
+
+
+    /**
+     * @param key
+     * @return the latest value of the key decoded as UTF-8, or null if there is none
+     */
+    public String getString(String key) {
+        byte[] value = get(key);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * @return a copy of the view
+     */
+    public Map<String, byte[]> snapshot() {
+        return Collections.unmodifiableMap(Maps.newHashMap(values));
+    }
+
+
+    public int size() {
+        return values.size();
+    }
+
+
+    /**
+     * invoke the callback once every record written before this call is in the view.
+     *
+     * @param callback
+     */
+    public void readToEnd(Callback<Void> callback) {
+        topicLog.readToEnd(callback);
+    }
+
+
+    /**
+     * block until every record written before this call is in the view.
+     *
+     * @param timeoutMs
+     */
+    public void readToEnd(long timeoutMs) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        topicLog.readToEnd(new Callback<Void>() {
+            @Override
+            public void onCompletion(Throwable error, Void result) {
+                failure.set(error);
+                latch.countDown();
+            }
+        });
+        try {
+            if (!latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ConnectException("Timed out reading to the end of topic " + topic);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while reading to the end of topic " + topic, e);
+        }
+        if (failure.get() != null) {
+            throw new ConnectException("Failed to read to the end of topic " + topic, failure.get());
+        }
+    }
+
+
+    @Override
+    public synchronized void close() {
+        if (!started) {
+            return;
+        }
+        topicLog.stop();
+        started = false;
+    }
+
+
+    public String topic() {
+        return topic;
+    }
+
+
+    private void read(ConsumerRecord<String, byte[]> record) {
+        String key = record.key();
+        if (key == null) {
+            return;
+        }
+        if (record.value() == null) {
+            values.remove(key);
+            keysIgnoreCase.remove(key.toLowerCase(Locale.ROOT), key);
+        } else {
+            values.put(key, record.value());
+            keysIgnoreCase.put(key.toLowerCase(Locale.ROOT), key);
+        }
+    }
+}
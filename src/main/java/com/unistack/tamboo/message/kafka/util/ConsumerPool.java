@@ -0,0 +1,414 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.unistack.tamboo.message.kafka.util.CommonUtils.getSecurityProps;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A bounded pool of byte-array consumers keyed by the bootstrap servers and the security configs, so
+ * that short fetches reuse the connections instead of setting up a new consumer every time. A borrowed
+ * consumer is exclusively owned until it is returned with {@link PooledConsumer#close()}; its assignment
+ * is cleared on return. Consumers idle for longer than the idle timeout are closed in the background.
+ * <p>
+ * The pool also has a bounded executor to run the fetches on, the caller runs the fetch itself when the
+ * queue is full.
+ */
+public class ConsumerPool implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(ConsumerPool.class);
+
+    public static final int DEFAULT_MAX_PER_KEY = 8;
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 5 * 60 * 1000L;
+
+    public static final long DEFAULT_BORROW_TIMEOUT_MS = 30 * 1000L;
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private final int maxPerKey;
+
+    private final long idleTimeoutMs;
+
+    private final long borrowTimeoutMs;
+
+    private final ConcurrentMap<Map<String, Object>, Partition> partitions = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong created = new AtomicLong();
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    private final AtomicLong borrowed = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+
+    public ConsumerPool() {
+        this(DEFAULT_MAX_PER_KEY, DEFAULT_IDLE_TIMEOUT_MS, DEFAULT_BORROW_TIMEOUT_MS);
+    }
+
+    /**
+     * @param maxPerKey       the max number of consumers of the same cluster, also the number of threads
+     *                        of the executor
+     * @param idleTimeoutMs   the time after which an idle consumer is closed
+     * @param borrowTimeoutMs the max time to wait for a consumer when all of them are in use
+     */
+    public ConsumerPool(int maxPerKey, long idleTimeoutMs, long borrowTimeoutMs) {
+        if (maxPerKey <= 0) {
+            throw new IllegalArgumentException("maxPerKey must be positive, but was " + maxPerKey);
+        }
+        this.maxPerKey = maxPerKey;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.executor = new ThreadPoolExecutor(maxPerKey, maxPerKey, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(DEFAULT_QUEUE_SIZE),
+                new ThreadFactoryBuilder().setNameFormat("consumer-pool-fetch-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("consumer-pool-evictor-%d")
+                .setDaemon(true)
+                .build());
+        long period = Math.max(1000L, idleTimeoutMs / 2);
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * borrow a consumer of the cluster, waiting for one to be returned if all of them are in use.
+     *
+     * @param bootstrapServers
+     * @return the consumer, return it to the pool by closing it
+     */
+    public PooledConsumer borrow(String bootstrapServers) {
+        return borrow(bootstrapServers, Collections.<String, Object>emptyMap());
+    }
+
+
+    /**
+     * borrow a consumer of the cluster with some configs overridden, e.g. {@code max.poll.records}. The
+     * consumers with different overrides are pooled separately.
+     *
+     * @param bootstrapServers
+     * @param overrides
+     * @return the consumer, return it to the pool by closing it
+     */
+    public PooledConsumer borrow(String bootstrapServers, Map<String, Object> overrides) {
+        Map<String, Object> configs = Maps.newHashMap();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        configs.putAll(ConfigHelper.toMap(getSecurityProps(bootstrapServers)));
+        configs.putAll(overrides);
+
+        Partition partition = partitions.computeIfAbsent(configs, c -> new Partition());
+        long start = System.nanoTime();
+        try {
+            if (!partition.permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new ConnectException("Timed out waiting " + borrowTimeoutMs + " ms for a consumer of " + bootstrapServers);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while waiting for a consumer of " + bootstrapServers, e);
+        } finally {
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+        borrowed.incrementAndGet();
+
+        Entry entry = partition.idle.pollFirst();
+        if (entry != null) {
+            reused.incrementAndGet();
+            return new PooledConsumer(this, partition, entry.consumer);
+        }
+        try {
+            KafkaConsumer<byte[], byte[]> consumer = new KafkaConsumer<>(configs);
+            created.incrementAndGet();
+            return new PooledConsumer(this, partition, consumer);
+        } catch (RuntimeException e) {
+            partition.permits.release();
+            throw e;
+        }
+    }
+
+
+    /**
+     * run a task on the executor of the pool.
+     *
+     * @param task
+     * @param <T>
+     * @return
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+
+    public PoolMetrics metrics() {
+        int idle = 0;
+        int active = 0;
+        for (Partition partition : partitions.values()) {
+            idle += partition.idle.size();
+            active += maxPerKey - partition.permits.availablePermits();
+        }
+        return new PoolMetrics(created.get(), evicted.get(), borrowed.get(), reused.get(), timeouts.get(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.get()), active, idle, executor.getQueue().size());
+    }
+
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        executor.shutdownNow();
+        for (Partition partition : partitions.values()) {
+            Entry entry;
+            while ((entry = partition.idle.pollFirst()) != null) {
+                closeQuietly(entry.consumer);
+            }
+        }
+        partitions.clear();
+    }
+
+
+    private void giveBack(Partition partition, KafkaConsumer<byte[], byte[]> consumer, boolean broken) {
+        try {
+            if (broken || executor.isShutdown()) {
+                closeQuietly(consumer);
+                return;
+            }
+            try {
+                consumer.unsubscribe();
+            } catch (Exception e) {
+                log.warn("Failed to reset a pooled consumer, close it.", e);
+                closeQuietly(consumer);
+                return;
+            }
+            // the most recently used consumer is borrowed first, so the others can idle out
+            partition.idle.offerFirst(new Entry(consumer, System.currentTimeMillis()));
+        } finally {
+            partition.permits.release();
+        }
+    }
+
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Partition partition : partitions.values()) {
+            Iterator<Entry> it = partition.idle.descendingIterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (now - entry.lastUsed < idleTimeoutMs) {
+                    break;
+                }
+                if (partition.idle.removeLastOccurrence(entry)) {
+                    closeQuietly(entry.consumer);
+                    evicted.incrementAndGet();
+                }
+            }
+        }
+    }
+
+
+    private static void closeQuietly(KafkaConsumer<byte[], byte[]> consumer) {
+        try {
+            consumer.close();
+        } catch (Exception e) {
+            log.warn("Failed to close a pooled consumer", e);
+        }
+    }
+
+
+    private class Partition {
+
+        private final Semaphore permits = new Semaphore(maxPerKey);
+
+        private final Deque<Entry> idle = new ConcurrentLinkedDeque<>();
+    }
+
+
+    private static class Entry {
+
+        private final KafkaConsumer<byte[], byte[]> consumer;
+
+        private final long lastUsed;
+
+        Entry(KafkaConsumer<byte[], byte[]> consumer, long lastUsed) {
+            this.consumer = consumer;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+
+    /**
+     * A consumer borrowed from the pool, closing it returns it to the pool.
+     */
+    public static class PooledConsumer implements AutoCloseable {
+
+        private final ConsumerPool pool;
+
+        private final Partition partition;
+
+        private final KafkaConsumer<byte[], byte[]> consumer;
+
+        private boolean broken = false;
+
+        private boolean returned = false;
+
+        private PooledConsumer(ConsumerPool pool, Partition partition, KafkaConsumer<byte[], byte[]> consumer) {
+            this.pool = pool;
+            this.partition = partition;
+            this.consumer = consumer;
+        }
+
+        public KafkaConsumer<byte[], byte[]> get() {
+            return consumer;
+        }
+
+        /**
+         * close the consumer instead of returning it to the pool, e.g. after an unexpected error.
+         */
+        public void invalidate() {
+            this.broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            pool.giveBack(partition, consumer, broken);
+        }
+    }
+
+
+    /**
+     * the counters of the pool.
+     */
+    public static class PoolMetrics {
+
+        private final long created;
+
+        private final long evicted;
+
+        private final long borrowed;
+
+        private final long reused;
+
+        private final long timeouts;
+
+        private final long waitMs;
+
+        private final int active;
+
+        private final int idle;
+
+        private final int queued;
+
+        PoolMetrics(long created, long evicted, long borrowed, long reused, long timeouts, long waitMs,
+                    int active, int idle, int queued) {
+            this.created = created;
+            this.evicted = evicted;
+            this.borrowed = borrowed;
+            this.reused = reused;
+            this.timeouts = timeouts;
+            this.waitMs = waitMs;
+            this.active = active;
+            this.idle = idle;
+            this.queued = queued;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getEvicted() {
+            return evicted;
+        }
+
+        public long getBorrowed() {
+            return borrowed;
+        }
+
+        public long getReused() {
+            return reused;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return the total time spent waiting for a consumer
+         */
+        public long getWaitMs() {
+            return waitMs;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        /**
+         * @return the tasks waiting in the queue of the executor
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("created", created)
+                    .add("evicted", evicted)
+                    .add("borrowed", borrowed)
+                    .add("reused", reused)
+                    .add("timeouts", timeouts)
+                    .add("waitMs", waitMs)
+                    .add("active", active)
+                    .add("idle", idle)
+                    .add("queued", queued)
+                    .toString();
+        }
+    }
+}
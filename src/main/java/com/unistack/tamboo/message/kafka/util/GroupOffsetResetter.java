@@ -0,0 +1,331 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import kafka.admin.AdminClient;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.collection.JavaConversions;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.unistack.tamboo.message.kafka.util.CommonUtils.getSecurityProps;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Reset the committed offsets of consumer groups on a set of topics, to the offsets of a timestamp, to
+ * the earliest or the latest offsets, or by a relative shift. The targets of all the groups are resolved
+ * together, with one batched lookup per kind of offset, and every group is committed with a single
+ * {@code commitSync(Map)}; the groups are reset in parallel. A group is reset only when it has no
+ * active member. A dry run returns the plan without committing it.
+ */
+public class GroupOffsetResetter implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(GroupOffsetResetter.class);
+
+    public static final long DESCRIBE_GROUP_TIMEOUT_MS = 5000L;
+
+    private final String bootstrapServers;
+
+    private final ConsumerPool consumerPool;
+
+    private final AdminClient adminClient;
+
+
+    public GroupOffsetResetter(String bootstrapServers) {
+        this(bootstrapServers, OffsetOperator.getConsumerPool());
+    }
+
+    public GroupOffsetResetter(String bootstrapServers, ConsumerPool consumerPool) {
+        this.bootstrapServers = bootstrapServers;
+        this.consumerPool = consumerPool;
+        Properties props = new Properties();
+        props.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.putAll(getSecurityProps(bootstrapServers));
+        this.adminClient = AdminClient.create(props);
+    }
+
+
+    /**
+     * @param groups
+     * @param topics
+     * @param target
+     * @param dryRun true to only compute the plan
+     * @return group -> the plan of the group and its outcome, in the order of the groups
+     */
+    public Map<String, GroupReset> reset(Collection<String> groups, Collection<String> topics, ResetTarget target,
+                                         boolean dryRun) {
+        final Targets targets = resolveTargets(topics, target);
+
+        Map<String, Future<GroupReset>> futures = new LinkedHashMap<>();
+        for (final String group : groups) {
+            futures.put(group, consumerPool.submit(() -> reset(group, targets, target, dryRun)));
+        }
+        Map<String, GroupReset> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<GroupReset>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted while resetting the offsets of " + entry.getKey(), e);
+            } catch (ExecutionException e) {
+                GroupReset failed = new GroupReset(entry.getKey());
+                failed.error = String.valueOf(e.getCause());
+                results.put(entry.getKey(), failed);
+            }
+        }
+        return results;
+    }
+
+
+    /**
+     * @return the plan of the groups, nothing is committed
+     */
+    public Map<String, GroupReset> plan(Collection<String> groups, Collection<String> topics, ResetTarget target) {
+        return reset(groups, topics, target, true);
+    }
+
+
+    private GroupReset reset(String group, Targets targets, ResetTarget target, boolean dryRun) {
+        GroupReset result = new GroupReset(group);
+        AdminClient.ConsumerGroupSummary summary = adminClient.describeConsumerGroup(group, DESCRIBE_GROUP_TIMEOUT_MS);
+        if (summary.consumers().isDefined() && !summary.consumers().get().isEmpty()) {
+            result.error = "Group " + group + " has active members, state " + summary.state();
+            return result;
+        }
+
+        Map<TopicPartition, Object> committed = JavaConversions.mapAsJavaMap(adminClient.listGroupOffsets(group));
+        for (TopicPartition tp : targets.partitions) {
+            Object current = committed.get(tp);
+            long currentOffset = current == null ? -1L : ((Number) current).longValue();
+            long targetOffset;
+            if (target.kind == ResetTarget.Kind.SHIFT) {
+                if (currentOffset < 0) {
+                    continue;
+                }
+                targetOffset = currentOffset + target.value;
+            } else {
+                targetOffset = targets.offsets.get(tp);
+            }
+            // an offset out of the log would be reset by the auto.offset.reset of the consumers
+            targetOffset = Math.max(targets.logStartOffsets.get(tp), Math.min(targets.logEndOffsets.get(tp), targetOffset));
+            result.plan.put(tp, new long[]{currentOffset, targetOffset});
+        }
+        if (dryRun || result.plan.isEmpty()) {
+            return result;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = Maps.newHashMapWithExpectedSize(result.plan.size());
+        for (Map.Entry<TopicPartition, long[]> entry : result.plan.entrySet()) {
+            offsets.put(entry.getKey(), new OffsetAndMetadata(entry.getValue()[1]));
+        }
+        try (KafkaConsumer<byte[], byte[]> consumer = createConsumer(group)) {
+            consumer.commitSync(offsets);
+            result.committed = true;
+            log.info("Reset the offsets of {} on {} partition(s)", group, offsets.size());
+        } catch (Exception e) {
+            log.error("Failed to reset the offsets of {}", group, e);
+            result.error = e.getMessage();
+        }
+        return result;
+    }
+
+
+    /**
+     * resolve the partitions, their log offsets and the offsets of the target once for all the groups.
+     */
+    private Targets resolveTargets(Collection<String> topics, ResetTarget target) {
+        Targets targets = new Targets();
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            for (String topic : topics) {
+                List<PartitionInfo> infos = consumer.partitionsFor(topic);
+                if (infos == null) {
+                    throw new ConnectException("Topic " + topic + " does not exist");
+                }
+                for (PartitionInfo info : infos) {
+                    targets.partitions.add(new TopicPartition(info.topic(), info.partition()));
+                }
+            }
+            targets.logStartOffsets = consumer.beginningOffsets(targets.partitions);
+            targets.logEndOffsets = consumer.endOffsets(targets.partitions);
+
+            switch (target.kind) {
+                case EARLIEST:
+                    targets.offsets = targets.logStartOffsets;
+                    break;
+                case LATEST:
+                    targets.offsets = targets.logEndOffsets;
+                    break;
+                case TIMESTAMP:
+                    targets.offsets = Maps.newHashMap();
+                    Map<TopicPartition, long[]> found = OffsetOperator.getOffsetsByTimestamps(consumer,
+                            targets.partitions, Collections.singletonList(target.value));
+                    for (Map.Entry<TopicPartition, long[]> entry : found.entrySet()) {
+                        // no record at or after the timestamp, nothing to consume
+                        long offset = entry.getValue()[0];
+                        targets.offsets.put(entry.getKey(),
+                                offset >= 0 ? offset : targets.logEndOffsets.get(entry.getKey()));
+                    }
+                    break;
+                default:
+                    targets.offsets = Collections.emptyMap();
+            }
+        }
+        return targets;
+    }
+
+
+    private KafkaConsumer<byte[], byte[]> createConsumer(String group) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, group);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.putAll(getSecurityProps(bootstrapServers));
+        return new KafkaConsumer<>(props);
+    }
+
+
+    @Override
+    public void close() {
+        adminClient.close();
+    }
+
+
+    private static class Targets {
+
+        private final List<TopicPartition> partitions = Lists.newArrayList();
+
+        private Map<TopicPartition, Long> logStartOffsets;
+
+        private Map<TopicPartition, Long> logEndOffsets;
+
+        private Map<TopicPartition, Long> offsets;
+    }
+
+
+    /**
+     * where to reset the offsets to.
+     */
+    public static class ResetTarget {
+
+        public enum Kind {
+            TIMESTAMP, EARLIEST, LATEST, SHIFT
+        }
+
+        private final Kind kind;
+
+        private final long value;
+
+        private ResetTarget(Kind kind, long value) {
+            this.kind = kind;
+            this.value = value;
+        }
+
+        /**
+         * the earliest offset whose timestamp is at or after the timestamp, the log end if there is none
+         */
+        public static ResetTarget toTimestamp(long timestamp) {
+            return new ResetTarget(Kind.TIMESTAMP, timestamp);
+        }
+
+        public static ResetTarget toEarliest() {
+            return new ResetTarget(Kind.EARLIEST, 0L);
+        }
+
+        public static ResetTarget toLatest() {
+            return new ResetTarget(Kind.LATEST, 0L);
+        }
+
+        /**
+         * move the committed offsets by the shift, negative to consume again; the partitions without a
+         * committed offset are left alone
+         */
+        public static ResetTarget shiftBy(long shift) {
+            return new ResetTarget(Kind.SHIFT, shift);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return kind + (kind == Kind.TIMESTAMP || kind == Kind.SHIFT ? "(" + value + ")" : "");
+        }
+    }
+
+
+    /**
+     * the plan of a group and its outcome.
+     */
+    public static class GroupReset {
+
+        private final String group;
+
+        /**
+         * partition -> [the committed offset or -1, the target offset]
+         */
+        private final Map<TopicPartition, long[]> plan = new LinkedHashMap<>();
+
+        private boolean committed = false;
+
+        private String error;
+
+        GroupReset(String group) {
+            this.group = group;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public Map<TopicPartition, long[]> getPlan() {
+            return plan;
+        }
+
+        public boolean isCommitted() {
+            return committed;
+        }
+
+        /**
+         * @return why the group was not reset, null if it was or if it is a dry run
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "GroupReset{" +
+                    "group='" + group + '\'' +
+                    ", partitions=" + plan.size() +
+                    ", committed=" + committed +
+                    ", error='" + error + '\'' +
+                    '}';
+        }
+    }
+}
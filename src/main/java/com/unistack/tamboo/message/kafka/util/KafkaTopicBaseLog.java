@@ -16,8 +16,10 @@ import org.apache.kafka.common.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 
 /**
  * @author Gyges Zean
@@ -27,11 +29,57 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
 
     public static final Logger log = LoggerFactory.getLogger(KafkaTopicBaseLog.class);
 
+    /**
+     * callbacks waiting for the runner thread to read to the end of the log
+     */
+    private final Queue<Callback<Void>> readLogEndOffsetCallbacks = new ArrayDeque<>();
+
+    /**
+     * a read-only log has no producer and no consumer group: it reads the whole log from the beginning
+     * and never commits its position
+     */
+    private final boolean readOnly;
+
+    /**
+     * if the log is read from the beginning on start, whatever the committed offsets of the group are
+     */
+    private final boolean readFromBeginning;
+
     public KafkaTopicBaseLog(Map<String, Object> producerConfigs, Map<String, Object> consumerConfigs,
                              Callback<ConsumerRecord<K, V>> consumerCallback, String topic,
                              Time time, Runnable initializer) {
+        this(producerConfigs, consumerConfigs, consumerCallback, topic, time, initializer, false);
+    }
+
+
+    /**
+     * @param readFromBeginning if the whole log is read on start, instead of resuming from the committed
+     *                          offsets of the group
+     */
+    public KafkaTopicBaseLog(Map<String, Object> producerConfigs, Map<String, Object> consumerConfigs,
+                             Callback<ConsumerRecord<K, V>> consumerCallback, String topic,
+                             Time time, Runnable initializer, boolean readFromBeginning) {
         super(producerConfigs, consumerConfigs, consumerCallback, topic, time, initializer);
         this.producerConfigs = producerConfigs;
+        this.readOnly = false;
+        this.readFromBeginning = readFromBeginning;
+    }
+
+
+    /**
+     * a read-only log, tailing the topic without a consumer group.
+     *
+     * @param consumerConfigs  the configs of the consumer, without {@code group.id}
+     * @param consumerCallback
+     * @param topic
+     * @param time
+     */
+    public KafkaTopicBaseLog(Map<String, Object> consumerConfigs, Callback<ConsumerRecord<K, V>> consumerCallback,
+                             String topic, Time time) {
+        super(consumerConfigs, topic, time, null);
+        this.consumerCallback = consumerCallback;
+        this.readOnly = true;
+        this.readFromBeginning = true;
     }
 
 
@@ -40,7 +88,9 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
         logger.info("Start KafkaBaseLog with topic" + topic);
 
         initializer.run();
-        producer = createProducer();
+        if (!readOnly) {
+            producer = createProducer();
+        }
         consumer = createConsumer();
 
         List<TopicPartition> partitions = Lists.newArrayList();
@@ -60,6 +110,9 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
             partitions.add(new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
         }
         consumer.assign(partitions);
+        if (readFromBeginning) {
+            consumer.seekToBeginning(partitions);
+        }
 
         readToLogEnd();
 
@@ -87,7 +140,9 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
                     "down it's producer and consumer.", e);
         }
         try {
-            producer.close();
+            if (producer != null) {
+                producer.close();
+            }
         } catch (org.apache.kafka.common.KafkaException e) {
             log.error("Failed to stop KafkaBasedLog producer", e);
         }
@@ -103,11 +158,28 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
     }
 
 
+    /**
+     * Read to the end of the log as it is now, then invoke the callback on the runner thread. Every record
+     * written before this call has been passed to the consumer callback when the callback is invoked.
+     *
+     * @param callback
+     */
+    public void readToEnd(Callback<Void> callback) {
+        log.trace("Starting read to end log for topic {}", topic);
+        synchronized (this) {
+            readLogEndOffsetCallbacks.add(callback);
+        }
+        consumer.wakeup();
+    }
+
+
     /**
      * Flush the underlying producer to ensure that all pending writes have been sent.
      */
     public void flush() {
-        producer.flush();
+        if (producer != null) {
+            producer.flush();
+        }
     }
 
     /**
@@ -127,6 +199,9 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
      * @param callback
      */
     public void send(K key, V value, org.apache.kafka.clients.producer.Callback callback) {
+        if (producer == null) {
+            throw new ConnectException("Cannot write to the read-only log of topic " + topic);
+        }
         producer.send(new ProducerRecord<>(topic, key, value), callback);
     }
 
@@ -149,7 +224,7 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
 
 
     public void commit() {
-        if (consumer != null) {
+        if (consumer != null && !readOnly) {
             consumer.commitSync();
         }
     }
@@ -166,10 +241,34 @@ public class KafkaTopicBaseLog<K, V> extends AbstractKafkaLog<K, V> {
                 logger.trace("{} started execution", this);
                 while (true) {
                     int numCallbacks;
-                    synchronized (KafkaTopicBaseLog.class) {
+                    synchronized (KafkaTopicBaseLog.this) {
                         if (stopRequested) {
                             break;
                         }
+                        numCallbacks = readLogEndOffsetCallbacks.size();
+                    }
+
+                    if (numCallbacks > 0) {
+                        try {
+                            readToLogEnd();
+                            log.trace("Finished read to end log for topic {}", topic);
+                        } catch (WakeupException e) {
+                            // Either received another readToEnd request or stop, both are handled by the next iteration
+                            continue;
+                        } catch (org.apache.kafka.common.KafkaException e) {
+                            log.error("Failed to read to the end of topic " + topic, e);
+                            synchronized (KafkaTopicBaseLog.this) {
+                                for (int i = 0; i < numCallbacks; i++) {
+                                    readLogEndOffsetCallbacks.poll().onCompletion(e, null);
+                                }
+                            }
+                            continue;
+                        }
+                        synchronized (KafkaTopicBaseLog.this) {
+                            for (int i = 0; i < numCallbacks; i++) {
+                                readLogEndOffsetCallbacks.poll().onCompletion(null, null);
+                            }
+                        }
                     }
 
                     try {
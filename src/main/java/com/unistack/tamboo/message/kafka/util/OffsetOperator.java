@@ -2,6 +2,7 @@ package com.unistack.tamboo.message.kafka.util;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.unistack.tamboo.message.kafka.errors.GeneralServiceException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.*;
@@ -12,7 +13,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 import static com.unistack.tamboo.message.kafka.util.CommonUtils.getSecurityProps;
 
@@ -26,6 +28,21 @@ public class OffsetOperator {
 
     private static Properties consumerConfigs = new Properties();
 
+    /**
+     * 复用的consumer, shared by all record fetches
+     */
+    private static final ConsumerPool consumerPool = new ConsumerPool();
+
+    /**
+     * servers|topic -> compacted topic的视图
+     */
+    private static final Map<String, CompactedTopicView> topicViews = new ConcurrentHashMap<>();
+
+    /**
+     * bootstrap servers -> the cache of the time indexes of the cluster
+     */
+    private static final Map<String, TimeIndexCache> timeIndexCaches = new ConcurrentHashMap<>();
+
     /**
      * 消费组id
      */
@@ -59,38 +76,41 @@ public class OffsetOperator {
 
 
     /**
-     * get consumer record withkey
+     * get consumer record withkey, from a view of the topic which is built on the first call and kept
+     * up to date in the background.
      *
      * @param key
      * @param bootstrapServers
      * @param topic
-     * @return
+     * @return the latest value of the key, the case of the key is ignored if there is no exact match;
+     * empty if there is none
      */
     public static String record(String key, String bootstrapServers, String topic) {
-        KafkaConsumer<byte[], byte[]> consumer = null;
-        String value = "";
         try {
-            consumer = getConfigConsumer(bootstrapServers);
-            List<TopicPartition> tpList = getTopicPartList(consumer.partitionsFor(topic));
-            consumer.assign(tpList);
-            consumer.seekToBeginning(tpList);
-            while (true) {
-                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT_MS);
-                for (ConsumerRecord<byte[], byte[]> record : records) {
-                    if (StringUtils.equalsIgnoreCase(new String(record.key()), key)) {
-                        value = new String(record.value());
-                        break;
-                    }
-                }
-            }
+            byte[] value = getTopicView(bootstrapServers, topic).getIgnoreCase(key);
+            return value == null ? "" : new String(value);
         } catch (Exception e) {
             logger.error("Failed to get record with key.", e);
-        } finally {
-            if (consumer != null) {
-                consumer.close();
-            }
+            return "";
         }
-        return value;
+    }
+
+
+    /**
+     * @param bootstrapServers
+     * @param topic
+     * @return the started view of the compacted topic
+     */
+    public static CompactedTopicView getTopicView(String bootstrapServers, String topic) {
+        CompactedTopicView view = topicViews.computeIfAbsent(bootstrapServers + "|" + topic,
+                k -> new CompactedTopicView(bootstrapServers, topic));
+        try {
+            view.start();
+        } catch (RuntimeException e) {
+            topicViews.remove(bootstrapServers + "|" + topic, view);
+            throw e;
+        }
+        return view;
     }
 
 
@@ -143,25 +163,15 @@ public class OffsetOperator {
      * @param timestamps
      * @param bootstrapServers
      * @param topic
-     * @return
+     * @return the offsets found, timestamp by timestamp, partition by partition
      */
     public static List<Long> getOffsetsByTimestamp(List<Long> timestamps, String bootstrapServers, String topic) {
         List<Long> data = Lists.newArrayList();
-        KafkaConsumer<byte[], byte[]> consumer = createConsumer(bootstrapServers);
-
-        for (Long timestamp : timestamps) {
-            List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
-
-            for (PartitionInfo partition : partitionInfos) {
-                TopicPartition topicPartition = new TopicPartition(partition.topic(), partition.partition());
-                Map<TopicPartition, Long> timestampsToSearch = Maps.newHashMap();
-                timestampsToSearch.put(topicPartition, timestamp);
-                Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes = consumer.offsetsForTimes(timestampsToSearch);
-                for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : offsetsForTimes.entrySet()) {
-                    OffsetAndTimestamp offsetAndTimestamp = entry.getValue();
-                    if (!Objects.isNull(offsetAndTimestamp)) {
-                        data.add(offsetAndTimestamp.offset());
-                    }
+        Map<TopicPartition, long[]> offsets = getOffsetsByTimestamps(timestamps, bootstrapServers, topic);
+        for (int i = 0; i < timestamps.size(); i++) {
+            for (long[] partitionOffsets : offsets.values()) {
+                if (partitionOffsets[i] >= 0) {
+                    data.add(partitionOffsets[i]);
                 }
             }
         }
@@ -169,6 +179,61 @@ public class OffsetOperator {
     }
 
 
+    /**
+     * 通过timestamp批量获取每个分区的offset. The metadata of the topic is looked up once and every
+     * timestamp is resolved for all partitions with a single {@code offsetsForTimes} call, which the
+     * consumer sends as one request per leader broker.
+     *
+     * @param timestamps
+     * @param bootstrapServers
+     * @param topic
+     * @return partition -> the offset of every timestamp, in the order of the timestamps; -1 if there is
+     * no record at or after the timestamp. The partitions are in the order of the metadata.
+     */
+    public static Map<TopicPartition, long[]> getOffsetsByTimestamps(List<Long> timestamps, String bootstrapServers, String topic) {
+        try (KafkaConsumer<byte[], byte[]> consumer = createConsumer(bootstrapServers)) {
+            return getOffsetsByTimestamps(consumer, getTopicPartList(consumer.partitionsFor(topic)), timestamps);
+        }
+    }
+
+
+    /**
+     * 通过timestamp批量获取指定分区的offset, with at most one {@code offsetsForTimes} call per timestamp.
+     *
+     * @param consumer
+     * @param partitions
+     * @param timestamps
+     * @return partition -> the offset of every timestamp, -1 if there is no record at or after the timestamp
+     */
+    public static Map<TopicPartition, long[]> getOffsetsByTimestamps(Consumer<?, ?> consumer,
+                                                                     Collection<TopicPartition> partitions,
+                                                                     List<Long> timestamps) {
+        Map<TopicPartition, long[]> result = new LinkedHashMap<>();
+        for (TopicPartition tp : partitions) {
+            long[] offsets = new long[timestamps.size()];
+            Arrays.fill(offsets, -1L);
+            result.put(tp, offsets);
+        }
+        if (partitions.isEmpty()) {
+            return result;
+        }
+
+        for (int i = 0; i < timestamps.size(); i++) {
+            Map<TopicPartition, Long> timestampsToSearch = Maps.newHashMapWithExpectedSize(partitions.size());
+            for (TopicPartition tp : partitions) {
+                timestampsToSearch.put(tp, timestamps.get(i));
+            }
+            Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes = consumer.offsetsForTimes(timestampsToSearch);
+            for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : offsetsForTimes.entrySet()) {
+                if (!Objects.isNull(entry.getValue())) {
+                    result.get(entry.getKey())[i] = entry.getValue().offset();
+                }
+            }
+        }
+        return result;
+    }
+
+
     /**
      * 根据offset获取数据
      *
@@ -180,42 +245,10 @@ public class OffsetOperator {
      */
     public static List<Map<Object, byte[]>> getRecordValueByOffset(List<Long> offsets, String bootstrapServers, String topic) throws GeneralServiceException {
         List<Map<Object, byte[]>> results = Lists.newArrayList();
-        Map<Long, FutureTask<Map<Object, byte[]>>> taskList = Maps.newHashMap();
+        Map<Long, Future<Map<Object, byte[]>>> taskList = Maps.newLinkedHashMap();
 
         for (Long offset : offsets) {
-            FutureTask<Map<Object, byte[]>> task = new FutureTask<>(() -> {
-                Map<Object, byte[]> data = Maps.newHashMap();
-                KafkaConsumer<byte[], byte[]> consumer = null;
-                try {
-                    consumer = createConsumer(bootstrapServers);
-                    List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
-                    for (PartitionInfo partitionInfo : partitionInfos) {
-                        TopicPartition topicPartition = new TopicPartition(partitionInfo.topic(), partitionInfo.partition());
-                        consumer.assign(Collections.singleton(topicPartition));
-                        consumer.seek(topicPartition, offset);
-                        logger.info("assignment topicPartition is -> " + consumer.assignment().toString());
-                        ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT_MS);
-                        while (!records.isEmpty()) {
-                            Iterator<ConsumerRecord<byte[], byte[]>> it = records.iterator();
-                            if (it.hasNext()) {
-                                ConsumerRecord<byte[], byte[]> record = it.next();
-                                data.put(record.timestamp(), record.value());
-                                break;
-                            }
-                        }
-                        consumer.commitSync();
-                    }
-                } catch (Exception e) {
-                    logger.error("", e);
-                } finally {
-                    if (consumer != null) {
-                        consumer.close();
-                    }
-                }
-                return data;
-            });
-            taskList.put(offset, task);
-            new Thread(task).start();
+            taskList.put(offset, consumerPool.submit(() -> fetchRecordValues(offset, bootstrapServers, topic)));
         }
 
 
@@ -240,6 +273,66 @@ public class OffsetOperator {
 
 
 
+    /**
+     * 从每个分区的指定offset获取第一条数据, with a consumer borrowed from the pool.
+     *
+     * @param offset
+     * @param bootstrapServers
+     * @param topic
+     * @return record timestamp -> record value
+     */
+    private static Map<Object, byte[]> fetchRecordValues(long offset, String bootstrapServers, String topic) {
+        Map<Object, byte[]> data = Maps.newHashMap();
+        ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers);
+        try {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            List<TopicPartition> partitions = getTopicPartList(consumer.partitionsFor(topic));
+            consumer.assign(partitions);
+            for (TopicPartition tp : partitions) {
+                consumer.seek(tp, offset);
+            }
+            Set<TopicPartition> pending = Sets.newHashSet(partitions);
+            while (!pending.isEmpty()) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT_MS);
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (TopicPartition tp : records.partitions()) {
+                    if (!pending.remove(tp)) {
+                        continue;
+                    }
+                    ConsumerRecord<byte[], byte[]> record = records.records(tp).get(0);
+                    data.put(record.timestamp(), record.value());
+                    consumer.pause(Collections.singleton(tp));
+                }
+            }
+        } catch (Exception e) {
+            pooled.invalidate();
+            logger.error("", e);
+        } finally {
+            pooled.close();
+        }
+        return data;
+    }
+
+
+    /**
+     * @param bootstrapServers
+     * @return the cache answering the repeated timestamp to offset lookups of the cluster
+     */
+    public static TimeIndexCache getTimeIndexCache(String bootstrapServers) {
+        return timeIndexCaches.computeIfAbsent(bootstrapServers, TimeIndexCache::new);
+    }
+
+
+    /**
+     * @return the pool of the consumers fetching records
+     */
+    public static ConsumerPool getConsumerPool() {
+        return consumerPool;
+    }
+
+
     public static void main(String[] args) {
         String servers = "192.168.1.110:9093,192.168.1.111:9093,192.168.1.112:9093";
         String topic = "test";
@@ -0,0 +1,192 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import java.util.Arrays;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A sparse, bounded index of (offset, timestamp) samples of a single partition, kept in two primitive
+ * arrays sorted by offset. The timestamps are kept non-decreasing: a new sample which contradicts the
+ * established ones is rejected, so a single skewed timestamp never evicts the head. When the index is full, the sample whose neighbours are the closest is dropped, so the
+ * samples stay spread over the whole range.
+ * <p>
+ * Not thread safe.
+ */
+public class OffsetTimeIndex {
+
+    private final long[] offsets;
+
+    private final long[] timestamps;
+
+    private int size = 0;
+
+
+    public OffsetTimeIndex(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2, but was " + capacity);
+        }
+        this.offsets = new long[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+
+    /**
+     * add a sample: the record at the offset has the timestamp, or, for the log-end offset, every
+     * record before the offset was written before the timestamp.
+     *
+     * @param offset
+     * @param timestamp
+     */
+    public void add(long offset, long timestamp) {
+        if (offset < 0 || timestamp < 0) {
+            return;
+        }
+        int pos = Arrays.binarySearch(offsets, 0, size, offset);
+        boolean replace = pos >= 0;
+        if (!replace) {
+            pos = -pos - 1;
+        }
+        // a sample which contradicts the established ones, e.g. a skewed CreateTime, is rejected
+        int next = replace ? pos + 1 : pos;
+        if ((pos > 0 && timestamps[pos - 1] > timestamp) || (next < size && timestamps[next] < timestamp)) {
+            return;
+        }
+        if (replace) {
+            timestamps[pos] = timestamp;
+            return;
+        }
+        if (size == offsets.length) {
+            int evicted = leastUseful();
+            removeAt(evicted);
+            if (evicted < pos) {
+                pos--;
+            }
+        }
+        System.arraycopy(offsets, pos, offsets, pos + 1, size - pos);
+        System.arraycopy(timestamps, pos, timestamps, pos + 1, size - pos);
+        offsets[pos] = offset;
+        timestamps[pos] = timestamp;
+        size++;
+    }
+
+
+    /**
+     * estimate the timestamp of the record at the offset by linear interpolation of the samples.
+     *
+     * @param offset
+     * @return the estimated timestamp, or -1 if the offset is not covered by the samples
+     */
+    public long timestampOf(long offset) {
+        if (size == 0 || offset < offsets[0] || offset > offsets[size - 1]) {
+            return -1L;
+        }
+        int pos = Arrays.binarySearch(offsets, 0, size, offset);
+        if (pos >= 0) {
+            return timestamps[pos];
+        }
+        int upper = -pos - 1;
+        int lower = upper - 1;
+        return interpolate(offsets[lower], timestamps[lower], offsets[upper], timestamps[upper], offset);
+    }
+
+
+    /**
+     * @param timestamp
+     * @return the index of the last sample whose timestamp is before the timestamp, or -1 if there is none
+     */
+    public int floorByTimestamp(long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+
+    /**
+     * @param timestamp
+     * @return the index of the first sample whose timestamp is at or after the timestamp, or -1 if there is none
+     */
+    public int ceilingByTimestamp(long timestamp) {
+        int floor = floorByTimestamp(timestamp);
+        return floor + 1 < size ? floor + 1 : -1;
+    }
+
+
+    /**
+     * drop all of the samples before the offset, e.g. the log start offset after retention.
+     *
+     * @param offset
+     */
+    public void truncateBefore(long offset) {
+        int pos = Arrays.binarySearch(offsets, 0, size, offset);
+        int from = pos >= 0 ? pos : -pos - 1;
+        if (from > 0) {
+            System.arraycopy(offsets, from, offsets, 0, size - from);
+            System.arraycopy(timestamps, from, timestamps, 0, size - from);
+            size -= from;
+        }
+    }
+
+
+    public long offsetAt(int index) {
+        return offsets[index];
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+
+    static long interpolate(long x0, long y0, long x1, long y1, long x) {
+        if (x1 == x0) {
+            return y1;
+        }
+        return y0 + (long) ((double) (y1 - y0) * (x - x0) / (x1 - x0));
+    }
+
+
+    /**
+     * the newest sample is never evicted, it is the head of the partition.
+     */
+    private int leastUseful() {
+        int evicted = 0;
+        long smallest = Long.MAX_VALUE;
+        for (int i = 1; i < size - 1; i++) {
+            long span = offsets[i + 1] - offsets[i - 1];
+            if (span < smallest) {
+                smallest = span;
+                evicted = i;
+            }
+        }
+        return evicted;
+    }
+
+
+    private void removeAt(int pos) {
+        System.arraycopy(offsets, pos + 1, offsets, pos, size - pos - 1);
+        System.arraycopy(timestamps, pos + 1, timestamps, pos, size - pos - 1);
+        size--;
+    }
+}
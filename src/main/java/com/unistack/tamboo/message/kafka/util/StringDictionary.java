@@ -0,0 +1,53 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Dictionary encoding of strings: every distinct string is stored once and referred to by a dense
+ * int id. Not thread safe.
+ */
+public class StringDictionary {
+
+    private final Map<String, Integer> ids = Maps.newHashMap();
+
+    private final List<String> values = Lists.newArrayList();
+
+
+    /**
+     * @param value
+     * @return the id of the value, a new id is assigned if the value is not in the dictionary yet
+     */
+    public int encode(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    public String decode(int id) {
+        return values.get(id);
+    }
+
+    /**
+     * @param value
+     * @return the id of the value, or -1 if the value is not in the dictionary
+     */
+    public int lookup(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
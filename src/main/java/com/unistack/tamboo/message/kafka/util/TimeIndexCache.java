@@ -0,0 +1,420 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * A local cache of the time index of partitions, answering the timestamp to offset lookups without a
+ * broker round-trip when it can. Every partition keeps an {@link OffsetTimeIndex} of the records seen,
+ * filled from the answers of the broker and from {@link #sample(String, int)}, and an index of bounds:
+ * the answer {@code o} for a timestamp {@code t} also tells that the record before {@code o} was
+ * written before {@code t}. A lookup is answered locally when the offset is known within
+ * {@code maxOffsetError} offsets, 0 meaning exactly, otherwise the broker is asked. The partitions are
+ * evicted least recently used first.
+ * <p>
+ * Assumes the timestamps of a partition grow with the offsets, e.g. with {@code LogAppendTime}.
+ */
+public class TimeIndexCache implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(TimeIndexCache.class);
+
+    public static final int DEFAULT_MAX_PARTITIONS = 10000;
+
+    public static final int DEFAULT_SAMPLES_PER_PARTITION = 128;
+
+    public static final long DEFAULT_MAX_OFFSET_ERROR = 0L;
+
+    /**
+     * how long the partitions of a topic which is not sampled in the background are cached
+     */
+    public static final long DEFAULT_PARTITIONS_TTL_MS = 5 * 60 * 1000L;
+
+    private final String bootstrapServers;
+
+    private final ConsumerPool consumerPool;
+
+    private final int samplesPerPartition;
+
+    private final long maxOffsetError;
+
+    /**
+     * access ordered, guarded by itself
+     */
+    private final LinkedHashMap<TopicPartition, Entry> entries;
+
+    private final Map<String, Partitions> partitionsByTopic = new ConcurrentHashMap<>();
+
+    private final Map<String, ScheduledFuture<?>> scheduled = new ConcurrentHashMap<>();
+
+    /**
+     * topic -> the sampling period, the partitions of the topic expire on the same schedule
+     */
+    private final Map<String, Long> periodsMs = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private ScheduledExecutorService sampler;
+
+
+    public TimeIndexCache(String bootstrapServers) {
+        this(bootstrapServers, OffsetOperator.getConsumerPool(), DEFAULT_MAX_PARTITIONS,
+                DEFAULT_SAMPLES_PER_PARTITION, DEFAULT_MAX_OFFSET_ERROR);
+    }
+
+    /**
+     * @param bootstrapServers
+     * @param consumerPool
+     * @param maxPartitions       the number of partitions cached
+     * @param samplesPerPartition the capacity of the index of every partition
+     * @param maxOffsetError      how far from the exact offset a local answer may be
+     */
+    public TimeIndexCache(String bootstrapServers, ConsumerPool consumerPool, final int maxPartitions,
+                          int samplesPerPartition, long maxOffsetError) {
+        this.bootstrapServers = bootstrapServers;
+        this.consumerPool = consumerPool;
+        this.samplesPerPartition = samplesPerPartition;
+        this.maxOffsetError = maxOffsetError;
+        this.entries = new LinkedHashMap<TopicPartition, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TopicPartition, Entry> eldest) {
+                return size() > maxPartitions;
+            }
+        };
+    }
+
+
+    /**
+     * the cached equivalent of {@link OffsetOperator#getOffsetsByTimestamps(List, String, String)}: the
+     * lookups which cannot be answered locally are sent to the broker together, one
+     * {@code offsetsForTimes} call per timestamp.
+     *
+     * @param timestamps
+     * @param topic
+     * @return partition -> the offset of every timestamp, in the order of the timestamps; -1 if there is
+     * no record at or after the timestamp
+     */
+    public Map<TopicPartition, long[]> getOffsetsByTimestamps(List<Long> timestamps, String topic) {
+        List<TopicPartition> partitions = partitionsFor(topic);
+        Map<TopicPartition, long[]> result = new LinkedHashMap<>();
+        List<Map<TopicPartition, Long>> missing = Lists.newArrayListWithCapacity(timestamps.size());
+        boolean allHit = true;
+        for (int i = 0; i < timestamps.size(); i++) {
+            missing.add(Maps.<TopicPartition, Long>newHashMap());
+        }
+        for (TopicPartition tp : partitions) {
+            long[] offsets = new long[timestamps.size()];
+            Arrays.fill(offsets, -1L);
+            result.put(tp, offsets);
+            for (int i = 0; i < timestamps.size(); i++) {
+                long offset = lookup(tp, timestamps.get(i));
+                if (offset >= 0) {
+                    offsets[i] = offset;
+                    hits.incrementAndGet();
+                } else {
+                    missing.get(i).put(tp, timestamps.get(i));
+                    misses.incrementAndGet();
+                    allHit = false;
+                }
+            }
+        }
+        if (allHit) {
+            return result;
+        }
+
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            for (int i = 0; i < timestamps.size(); i++) {
+                if (missing.get(i).isEmpty()) {
+                    continue;
+                }
+                Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(missing.get(i));
+                for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : found.entrySet()) {
+                    if (entry.getValue() != null) {
+                        result.get(entry.getKey())[i] = entry.getValue().offset();
+                        recordLookup(entry.getKey(), timestamps.get(i), entry.getValue().offset(),
+                                entry.getValue().timestamp());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * answer a lookup from the cache only.
+     *
+     * @param tp
+     * @param timestamp
+     * @return the earliest offset whose timestamp is at or after the timestamp, within the max error;
+     * -1 if the cache cannot tell
+     */
+    public long lookup(TopicPartition tp, long timestamp) {
+        synchronized (entries) {
+            Entry entry = entries.get(tp);
+            return entry == null ? -1L : entry.lookup(timestamp, maxOffsetError);
+        }
+    }
+
+
+    /**
+     * @param tp
+     * @param offset
+     * @param timestamp the timestamp of the record at the offset
+     */
+    public void recordSample(TopicPartition tp, long offset, long timestamp) {
+        synchronized (entries) {
+            entry(tp).records.add(offset, timestamp);
+        }
+    }
+
+
+    /**
+     * @param tp
+     * @param timestamp       the timestamp looked up
+     * @param offset          the earliest offset whose timestamp is at or after the timestamp
+     * @param recordTimestamp the timestamp of the record at the offset
+     */
+    public void recordLookup(TopicPartition tp, long timestamp, long offset, long recordTimestamp) {
+        synchronized (entries) {
+            Entry entry = entry(tp);
+            entry.records.add(offset, recordTimestamp);
+            if (offset > 0) {
+                entry.bounds.add(offset - 1, timestamp);
+            }
+        }
+    }
+
+
+    /**
+     * fill the index of every partition of the topic with records sampled across the retained offsets,
+     * and drop the samples older than the log start offsets.
+     *
+     * @param topic
+     * @param samples the number of records sampled, over all the partitions
+     */
+    public void sample(String topic, int samples) {
+        List<TopicPartition> partitions = refreshPartitions(topic);
+        Map<TopicPartition, Long> logStartOffsets;
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            logStartOffsets = pooled.get().beginningOffsets(partitions);
+        }
+        List<ConsumerRecord<byte[], byte[]>> records = new TopicSampler(bootstrapServers, consumerPool)
+                .sample(topic, samples);
+        synchronized (entries) {
+            for (Map.Entry<TopicPartition, Long> logStart : logStartOffsets.entrySet()) {
+                Entry entry = entry(logStart.getKey());
+                entry.logStartOffset = logStart.getValue();
+                entry.records.truncateBefore(logStart.getValue());
+                entry.bounds.truncateBefore(logStart.getValue());
+            }
+            for (ConsumerRecord<byte[], byte[]> record : records) {
+                entry(new TopicPartition(record.topic(), record.partition())).records
+                        .add(record.offset(), record.timestamp());
+            }
+        }
+    }
+
+
+    /**
+     * sample the topic periodically in the background.
+     *
+     * @param topic
+     * @param samples  the number of records sampled every time
+     * @param periodMs
+     */
+    public synchronized void schedule(final String topic, final int samples, long periodMs) {
+        if (sampler == null) {
+            sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("time-index-sampler-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        periodsMs.put(topic, periodMs);
+        ScheduledFuture<?> previous = scheduled.put(topic, sampler.scheduleWithFixedDelay(() -> {
+            try {
+                sample(topic, samples);
+            } catch (Throwable t) {
+                log.warn("Failed to sample the time index of {}", topic, t);
+            }
+        }, 0, periodMs, TimeUnit.MILLISECONDS));
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+
+    public synchronized void unschedule(String topic) {
+        ScheduledFuture<?> future = scheduled.remove(topic);
+        periodsMs.remove(topic);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+
+    public void invalidate(String topic) {
+        partitionsByTopic.remove(topic);
+        synchronized (entries) {
+            entries.keySet().removeIf(tp -> tp.topic().equals(topic));
+        }
+    }
+
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+
+    @Override
+    public synchronized void close() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+        }
+        scheduled.clear();
+    }
+
+
+    private Entry entry(TopicPartition tp) {
+        Entry entry = entries.get(tp);
+        if (entry == null) {
+            entry = new Entry(samplesPerPartition);
+            entries.put(tp, entry);
+        }
+        return entry;
+    }
+
+
+    /**
+     * @return the cached partitions of the topic, fetched again once they are older than the sampling
+     * period of the topic, so the partitions added later are looked up too
+     */
+    private List<TopicPartition> partitionsFor(String topic) {
+        Partitions partitions = partitionsByTopic.get(topic);
+        long ttlMs = periodsMs.getOrDefault(topic, DEFAULT_PARTITIONS_TTL_MS);
+        if (partitions == null || System.currentTimeMillis() - partitions.fetchedMs > ttlMs) {
+            return refreshPartitions(topic);
+        }
+        return partitions.list;
+    }
+
+
+    private List<TopicPartition> refreshPartitions(String topic) {
+        List<PartitionInfo> infos;
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            infos = pooled.get().partitionsFor(topic);
+        }
+        if (infos == null) {
+            throw new ConnectException("Topic " + topic + " does not exist");
+        }
+        List<TopicPartition> partitions = Lists.newArrayListWithCapacity(infos.size());
+        for (PartitionInfo info : infos) {
+            partitions.add(new TopicPartition(info.topic(), info.partition()));
+        }
+        partitionsByTopic.put(topic, new Partitions(partitions, System.currentTimeMillis()));
+        return partitions;
+    }
+
+
+    private static class Partitions {
+
+        private final List<TopicPartition> list;
+
+        private final long fetchedMs;
+
+
+        Partitions(List<TopicPartition> list, long fetchedMs) {
+            this.list = list;
+            this.fetchedMs = fetchedMs;
+        }
+    }
+
+
+    /**
+     * the time index of a partition.
+     */
+    private static class Entry {
+
+        /**
+         * offset -> the timestamp of the record
+         */
+        private final OffsetTimeIndex records;
+
+        /**
+         * offset -> a timestamp the record was written before
+         */
+        private final OffsetTimeIndex bounds;
+
+        private long logStartOffset = -1L;
+
+
+        Entry(int capacity) {
+            this.records = new OffsetTimeIndex(capacity);
+            this.bounds = new OffsetTimeIndex(capacity);
+        }
+
+
+        /**
+         * the answer is within (the last offset known to be before the timestamp, the first record known
+         * to be at or after it].
+         */
+        long lookup(long timestamp, long maxOffsetError) {
+            int ceiling = records.ceilingByTimestamp(timestamp);
+            if (ceiling < 0) {
+                return -1L;
+            }
+            long upper = records.offsetAt(ceiling);
+            if (upper < logStartOffset) {
+                return -1L;
+            }
+            long lower = logStartOffset >= 0 ? logStartOffset - 1 : Long.MIN_VALUE;
+            int floor = records.floorByTimestamp(timestamp);
+            if (floor >= 0) {
+                lower = Math.max(lower, records.offsetAt(floor));
+            }
+            int bound = bounds.floorByTimestamp(timestamp == Long.MAX_VALUE ? timestamp : timestamp + 1);
+            if (bound >= 0) {
+                lower = Math.max(lower, bounds.offsetAt(bound));
+            }
+            if (lower == Long.MIN_VALUE || upper - lower - 1 > maxOffsetError) {
+                return -1L;
+            }
+            return upper;
+        }
+    }
+}
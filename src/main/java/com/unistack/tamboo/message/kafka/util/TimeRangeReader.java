@@ -0,0 +1,345 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Read all the records of a topic written in a time range, e.g. between 10:00 and 10:05.
+ * <ul>
+ * <li>the start and the end offset of every partition are resolved with one {@code offsetsForTimes}
+ * call per bound;</li>
+ * <li>the partitions are split between a bounded number of workers, every worker scans its partitions
+ * with a consumer borrowed from the {@link ConsumerPool} and pauses a partition as soon as its end offset
+ * is reached, so nothing after the range is fetched again;</li>
+ * <li>the records are handed over through a bounded queue, a slow reader blocks the workers.</li>
+ * </ul>
+ * The records of a partition are in offset order, the partitions are interleaved.
+ */
+public class TimeRangeReader implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(TimeRangeReader.class);
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    public static final long POLL_TIMEOUT_MS = 100L;
+
+    /**
+     * queued by a worker when it is done
+     */
+    private static final ConsumerRecord<byte[], byte[]> END = new ConsumerRecord<>("", -1, -1L, null, null);
+
+    private final String bootstrapServers;
+
+    private final ConsumerPool consumerPool;
+
+    private final int parallelism;
+
+    private final int queueCapacity;
+
+    private final ExecutorService executor;
+
+
+    public TimeRangeReader(String bootstrapServers) {
+        this(bootstrapServers, OffsetOperator.getConsumerPool(), DEFAULT_PARALLELISM, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param bootstrapServers
+     * @param consumerPool     the pool the consumers are borrowed from
+     * @param parallelism      the max number of partitions scanned at the same time
+     * @param queueCapacity    the max number of records read ahead
+     */
+    public TimeRangeReader(String bootstrapServers, ConsumerPool consumerPool, int parallelism, int queueCapacity) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive, but was " + queueCapacity);
+        }
+        this.bootstrapServers = bootstrapServers;
+        this.consumerPool = consumerPool;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("time-range-reader-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+
+    /**
+     * resolve the offsets of the range.
+     *
+     * @param topic
+     * @param startMs the first timestamp, inclusive
+     * @param endMs   the last timestamp, exclusive; Long.MAX_VALUE for the current end of the log
+     * @return partition -> [start offset, end offset), only the partitions with records in the range
+     */
+    public Map<TopicPartition, long[]> resolve(String topic, long startMs, long endMs) {
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            List<TopicPartition> partitions = partitionsFor(consumer, topic);
+
+            List<Long> timestamps = endMs == Long.MAX_VALUE ? Collections.singletonList(startMs) : Arrays.asList(startMs, endMs);
+            Map<TopicPartition, long[]> byTime = OffsetOperator.getOffsetsByTimestamps(consumer, partitions, timestamps);
+            Map<TopicPartition, Long> logEndOffsets = consumer.endOffsets(partitions);
+
+            Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+            for (Map.Entry<TopicPartition, long[]> entry : byTime.entrySet()) {
+                long start = entry.getValue()[0];
+                long end = timestamps.size() > 1 && entry.getValue()[1] >= 0 ? entry.getValue()[1] : logEndOffsets.get(entry.getKey());
+                if (start >= 0 && start < end) {
+                    ranges.put(entry.getKey(), new long[]{start, end});
+                }
+            }
+            return ranges;
+        }
+    }
+
+
+    /**
+     * resolve the offsets of the whole topic.
+     *
+     * @param topic
+     * @return partition -> [log start offset, log end offset), only the partitions with records
+     */
+    public Map<TopicPartition, long[]> resolve(String topic) {
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers)) {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            List<TopicPartition> partitions = partitionsFor(consumer, topic);
+            Map<TopicPartition, Long> logStartOffsets = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> logEndOffsets = consumer.endOffsets(partitions);
+
+            Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+            for (TopicPartition tp : partitions) {
+                long start = logStartOffsets.get(tp);
+                long end = logEndOffsets.get(tp);
+                if (start < end) {
+                    ranges.put(tp, new long[]{start, end});
+                }
+            }
+            return ranges;
+        }
+    }
+
+
+    /**
+     * pull the records of the range.
+     *
+     * @param topic
+     * @param startMs the first timestamp, inclusive
+     * @param endMs   the last timestamp, exclusive
+     * @return the records, close the iterator to stop reading early
+     */
+    public RecordIterator iterator(String topic, long startMs, long endMs) {
+        return scan(resolve(topic, startMs, endMs), null);
+    }
+
+
+    /**
+     * push the records of the range to the callback, on the calling thread.
+     *
+     * @param topic
+     * @param startMs  the first timestamp, inclusive
+     * @param endMs    the last timestamp, exclusive
+     * @param callback
+     * @return the number of records read
+     */
+    public long read(String topic, long startMs, long endMs, Callback<ConsumerRecord<byte[], byte[]>> callback) {
+        long count = 0;
+        try (RecordIterator it = iterator(topic, startMs, endMs)) {
+            while (it.hasNext()) {
+                callback.onCompletion(null, it.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * scan the given offset ranges.
+     *
+     * @param ranges partition -> [start offset, end offset)
+     * @param filter only the records matching the filter are handed over, tested on the workers;
+     *               null for all records
+     * @return the records
+     */
+    public RecordIterator scan(Map<TopicPartition, long[]> ranges, Predicate<ConsumerRecord<byte[], byte[]>> filter) {
+        List<List<TopicPartition>> shares = Lists.newArrayList();
+        int workers = Math.min(parallelism, ranges.size());
+        for (int i = 0; i < workers; i++) {
+            shares.add(Lists.newArrayList());
+        }
+        int i = 0;
+        for (TopicPartition tp : ranges.keySet()) {
+            shares.get(i++ % workers).add(tp);
+        }
+
+        RecordIterator iterator = new RecordIterator(queueCapacity, workers);
+        for (List<TopicPartition> share : shares) {
+            iterator.futures.add(executor.submit(() -> scan(share, ranges, filter, iterator)));
+        }
+        return iterator;
+    }
+
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+
+    private static List<TopicPartition> partitionsFor(KafkaConsumer<byte[], byte[]> consumer, String topic) {
+        List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+        if (partitionInfos == null) {
+            throw new ConnectException("Topic " + topic + " does not exist");
+        }
+        List<TopicPartition> partitions = Lists.newArrayList();
+        for (PartitionInfo info : partitionInfos) {
+            partitions.add(new TopicPartition(info.topic(), info.partition()));
+        }
+        return partitions;
+    }
+
+
+    private void scan(List<TopicPartition> partitions, Map<TopicPartition, long[]> ranges,
+                      Predicate<ConsumerRecord<byte[], byte[]>> filter, RecordIterator iterator) {
+        ConsumerPool.PooledConsumer pooled = null;
+        try {
+            pooled = consumerPool.borrow(bootstrapServers);
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            consumer.assign(partitions);
+            List<TopicPartition> remaining = Lists.newArrayList(partitions);
+            for (TopicPartition tp : partitions) {
+                consumer.seek(tp, ranges.get(tp)[0]);
+            }
+
+            while (!remaining.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT_MS);
+                for (TopicPartition tp : records.partitions()) {
+                    long end = ranges.get(tp)[1];
+                    for (ConsumerRecord<byte[], byte[]> record : records.records(tp)) {
+                        if (record.offset() >= end) {
+                            break;
+                        }
+                        if (filter == null || filter.test(record)) {
+                            iterator.queue.put(record);
+                        }
+                    }
+                }
+                for (int j = remaining.size() - 1; j >= 0; j--) {
+                    TopicPartition tp = remaining.get(j);
+                    if (consumer.position(tp) >= ranges.get(tp)[1]) {
+                        consumer.pause(Collections.singleton(tp));
+                        remaining.remove(j);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pooled != null) {
+                pooled.invalidate();
+            }
+        } catch (Throwable t) {
+            log.error("Failed to scan " + partitions, t);
+            iterator.failure.compareAndSet(null, t);
+            if (pooled != null) {
+                pooled.invalidate();
+            }
+        } finally {
+            if (pooled != null) {
+                pooled.close();
+            }
+            iterator.runningWorkers.decrementAndGet();
+            iterator.queue.offer(END);
+        }
+    }
+
+
+    /**
+     * The records of a scan. The iterator throws a {@link ConnectException} if a worker failed.
+     */
+    public static class RecordIterator extends AbstractIterator<ConsumerRecord<byte[], byte[]>> implements AutoCloseable {
+
+        private final BlockingQueue<ConsumerRecord<byte[], byte[]>> queue;
+
+        private final AtomicInteger runningWorkers;
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final List<Future<?>> futures = Lists.newCopyOnWriteArrayList();
+
+        private RecordIterator(int queueCapacity, int workers) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.runningWorkers = new AtomicInteger(workers);
+        }
+
+        @Override
+        protected ConsumerRecord<byte[], byte[]> computeNext() {
+            while (true) {
+                if (failure.get() != null) {
+                    close();
+                    throw new ConnectException("Failed to scan the time range", failure.get());
+                }
+                ConsumerRecord<byte[], byte[]> record;
+                try {
+                    record = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    return endOfData();
+                }
+                if (record == null || record == END) {
+                    // a worker may not have been able to queue its END marker
+                    if (runningWorkers.get() == 0 && queue.isEmpty() && failure.get() == null) {
+                        return endOfData();
+                    }
+                    continue;
+                }
+                return record;
+            }
+        }
+
+        /**
+         * stop the workers, the records not read yet are dropped.
+         */
+        @Override
+        public void close() {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            queue.clear();
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.unistack.tamboo.message.kafka.util;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.unistack.tamboo.message.kafka.bean.Callback;
 import com.unistack.tamboo.message.kafka.bean.ClusterDescription;
 import com.unistack.tamboo.message.kafka.bean.TopicDescription;
 import com.unistack.tamboo.message.kafka.bean.TopicPartitionInfo;
+import com.unistack.tamboo.message.kafka.bean.TopicProvisionResult;
 import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.admin.*;
@@ -24,7 +27,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeoutException;
 
 import static com.unistack.tamboo.message.kafka.util.ConfigHelper.jaasConfigProperty;
@@ -43,7 +50,30 @@ public class TopicAdmin implements AutoCloseable {
 
     public static final String PRINCIPAL_PREFIX = "User:";
 
-    public static Map<Integer, String> brokers = new HashMap<>();
+    /**
+     * broker id -> host:port of this cluster, replaced as a whole by every load of the cluster metadata
+     */
+    public volatile Map<Integer, String> brokers = ImmutableMap.of();
+
+    /**
+     * the number of topics per CreateTopics request of a bulk provisioning
+     */
+    public static final int PROVISION_CHUNK_SIZE = 200;
+
+    /**
+     * the number of CreateTopics requests of a bulk provisioning waiting for their results
+     */
+    public static final int PROVISION_MAX_IN_FLIGHT = 4;
+
+    /**
+     * the number of topics per DescribeTopics request of {@link #describeAllTopics(Callback)}
+     */
+    public static final int DESCRIBE_PAGE_SIZE = 500;
+
+    /**
+     * the number of DescribeTopics requests of {@link #describeAllTopics(Callback)} waiting for their results
+     */
+    public static final int DESCRIBE_MAX_IN_FLIGHT = 4;
 
 
     /**
@@ -181,6 +211,11 @@ public class TopicAdmin implements AutoCloseable {
 
     private final AdminClient admin;
 
+    /**
+     * the metadata of the cluster, answering the cached variants of the queries
+     */
+    private final ClusterMetadataCache metadataCache;
+
     /**
      * create a TopicAdmin instance by adminConfig
      *
@@ -199,6 +234,8 @@ public class TopicAdmin implements AutoCloseable {
     public TopicAdmin(Map<String, Object> adminConfig, AdminClient adminClient) {
         this.admin = adminClient;
         this.adminConfig = adminConfig != null ? adminConfig : Collections.emptyMap();
+        this.metadataCache = new ClusterMetadataCache(adminClient, ClusterMetadataCache.DEFAULT_TTL_MS,
+                description -> brokers = ImmutableMap.copyOf(toIdToHost(description)));
     }
 
     /**
@@ -321,10 +358,107 @@ public class TopicAdmin implements AutoCloseable {
                 throw new ConnectException("Interrupted while attempting to create/find topics(s) " + topicNameList + "", e);
             }
         }
+        if (!newlyCreateTopicNames.isEmpty()) {
+            metadataCache.invalidateTopics();
+        }
         return newlyCreateTopicNames;
     }
 
 
+    /**
+     * Create many topics at once, e.g. the topics of all the tenants. The topics are sent in chunks of
+     * {@link #PROVISION_CHUNK_SIZE}, {@link #PROVISION_MAX_IN_FLIGHT} chunks at a time, and a failure of
+     * a topic, including an unsupported version or an authorization error, does not stop the others.
+     *
+     * @param topics
+     * @return topic -> created, existed or failed with the reason, in the order of the topics
+     */
+    public Map<String, TopicProvisionResult> provisionTopics(Collection<NewTopic> topics) {
+        return provisionTopics(topics, PROVISION_CHUNK_SIZE, PROVISION_MAX_IN_FLIGHT);
+    }
+
+
+    /**
+     * @param topics
+     * @param chunkSize   the number of topics per CreateTopics request
+     * @param maxInFlight the number of requests sent without waiting for their results
+     * @return topic -> created, existed or failed with the reason, in the order of the topics
+     */
+    public Map<String, TopicProvisionResult> provisionTopics(Collection<NewTopic> topics, int chunkSize, int maxInFlight) {
+        Map<String, NewTopic> topicByName = new LinkedHashMap<>();
+        for (NewTopic topic : topics) {
+            if (topic != null) {
+                topicByName.put(topic.name(), topic);
+            }
+        }
+        final Map<String, TopicProvisionResult> results = new ConcurrentHashMap<>();
+        if (topicByName.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final String bootstrapServers = bootstrapServers();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        List<KafkaFuture<Void>> chunks = Lists.newArrayList();
+        CreateTopicsOptions args = new CreateTopicsOptions().validateOnly(false).timeoutMs(OPERATION_TIMEOUT);
+
+        try {
+            for (List<NewTopic> chunk : Lists.partition(Lists.newArrayList(topicByName.values()), chunkSize)) {
+                inFlight.acquire();
+                final Map<String, KafkaFuture<Void>> values;
+                try {
+                    values = admin.createTopics(chunk, args).values();
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    for (NewTopic topic : chunk) {
+                        results.put(topic.name(), TopicProvisionResult.failed(topic.name(), e));
+                    }
+                    continue;
+                }
+                for (final Map.Entry<String, KafkaFuture<Void>> entry : values.entrySet()) {
+                    entry.getValue().whenComplete((v, error) ->
+                            results.put(entry.getKey(), toProvisionResult(entry.getKey(), error, bootstrapServers)));
+                }
+                KafkaFuture<Void> all = KafkaFuture.allOf(values.values().toArray(new KafkaFuture<?>[0]));
+                all.whenComplete((v, error) -> inFlight.release());
+                chunks.add(all);
+            }
+            for (KafkaFuture<Void> chunk : chunks) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    // reported per topic
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while provisioning " + topicByName.size() + " topic(s)", e);
+        }
+
+        metadataCache.invalidateTopics();
+        Map<String, TopicProvisionResult> ordered = new LinkedHashMap<>();
+        for (String topic : topicByName.keySet()) {
+            TopicProvisionResult result = results.get(topic);
+            ordered.put(topic, result != null ? result
+                    : new TopicProvisionResult(topic, TopicProvisionResult.Status.FAILED, "No response from the brokers"));
+        }
+        return ordered;
+    }
+
+
+    private static TopicProvisionResult toProvisionResult(String topic, Throwable error, String bootstrapServers) {
+        if (error == null) {
+            log.info("Create topic {} on brokers at {}", topic, bootstrapServers);
+            return TopicProvisionResult.created(topic);
+        }
+        Throwable cause = error instanceof ExecutionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TopicExistsException) {
+            log.debug("Found existing topic '{}' on the brokers at {}", topic, bootstrapServers);
+            return TopicProvisionResult.existed(topic);
+        }
+        log.warn("Failed to create topic '{}' on the brokers at {}: {}", topic, bootstrapServers, cause.toString());
+        return TopicProvisionResult.failed(topic, cause);
+    }
+
+
     /**
      * Attempt to delete the topics,returning all of the names of
      * those topics that were deleted by this request.
@@ -391,6 +525,9 @@ public class TopicAdmin implements AutoCloseable {
                 throw new ConnectException("Interrupted while attempting to delete topics(s) " + topicNameList + "", e);
             }
         }
+        if (!newDeleteTopicNames.isEmpty()) {
+            metadataCache.invalidateTopics();
+        }
         return newDeleteTopicNames;
     }
 
@@ -420,27 +557,14 @@ public class TopicAdmin implements AutoCloseable {
         DescribeTopicsOptions describeTopicsOptions = new DescribeTopicsOptions().timeoutMs(OPERATION_TIMEOUT);
 
         Map<String, TopicDescription> descriptionTopic = Maps.newHashMap();
-        TopicDescription td = new TopicDescription();
 
         Map<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>>
                 result = admin.describeTopics(topicNames, describeTopicsOptions).values();
 
         result.forEach((key, value) -> {
-            List<TopicPartitionInfo> partitionInfos = Lists.newArrayList();
             try {
-                td.setInternal(value.get().isInternal());
-
-                value.get().partitions().forEach(topicPartitionInfo -> {
-                    TopicPartitionInfo info = TopicPartitionInfo
-                            .defineTopicForPartition(topicPartitionInfo.partition())
-                            .leader(topicPartitionInfo.leader())
-                            .replicas(topicPartitionInfo.replicas())
-                            .isr(topicPartitionInfo.isr())
-                            .build();
-                    partitionInfos.add(info);
-                });
-                td.setPartitions(partitionInfos);
-                descriptionTopic.put(value.get().name(), td);
+                TopicDescription td = toTopicDescription(value.get());
+                descriptionTopic.put(td.getName(), td);
             } catch (ExecutionException e) {
                 Throwable cause = e.getCause();
                 if (cause instanceof UnsupportedVersionException) {
@@ -469,6 +593,90 @@ public class TopicAdmin implements AutoCloseable {
     }
 
 
+    /**
+     * Describe every topic of the cluster, {@link #DESCRIBE_PAGE_SIZE} topics per request and
+     * {@link #DESCRIBE_MAX_IN_FLIGHT} requests at a time.
+     *
+     * @param callback invoked with every description, or with the error of a topic, on the calling thread
+     * @return the number of topics described
+     */
+    public int describeAllTopics(Callback<TopicDescription> callback) {
+        return describeAllTopics(DESCRIBE_PAGE_SIZE, DESCRIBE_MAX_IN_FLIGHT, callback);
+    }
+
+
+    /**
+     * Describe every topic of the cluster in pages. The descriptions of a page are handed to the callback
+     * as soon as the page completes, so at most {@code pageSize * maxInFlight} descriptions are held at
+     * any time. The topics deleted since they were listed are skipped.
+     *
+     * @param pageSize    the number of topics per DescribeTopics request
+     * @param maxInFlight the number of requests sent without waiting for their results
+     * @param callback    invoked with every description, or with the error of a topic, on the calling thread
+     * @return the number of topics described
+     */
+    public int describeAllTopics(int pageSize, int maxInFlight, Callback<TopicDescription> callback) {
+        List<String> topics = Lists.newArrayList(listAllTopics());
+        Collections.sort(topics);
+        Iterator<List<String>> pages = Lists.partition(topics, pageSize).iterator();
+        DescribeTopicsOptions options = new DescribeTopicsOptions().timeoutMs(OPERATION_TIMEOUT);
+        BlockingQueue<Map<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>>> completed =
+                new LinkedBlockingQueue<>();
+
+        int inFlight = 0;
+        int described = 0;
+        try {
+            while (pages.hasNext() || inFlight > 0) {
+                if (pages.hasNext() && inFlight < maxInFlight) {
+                    final Map<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>> page =
+                            admin.describeTopics(pages.next(), options).values();
+                    KafkaFuture.allOf(page.values().toArray(new KafkaFuture<?>[0]))
+                            .whenComplete((v, error) -> completed.add(page));
+                    inFlight++;
+                    continue;
+                }
+                Map<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>> page = completed.take();
+                inFlight--;
+                for (Map.Entry<String, KafkaFuture<org.apache.kafka.clients.admin.TopicDescription>> entry : page.entrySet()) {
+                    TopicDescription td;
+                    try {
+                        td = toTopicDescription(entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+                            log.debug("Topic '{}' was deleted while describing all topics", entry.getKey());
+                        } else {
+                            log.warn("Failed to describe topic '{}'", entry.getKey(), e.getCause());
+                            callback.onCompletion(e.getCause(), null);
+                        }
+                        continue;
+                    }
+                    callback.onCompletion(null, td);
+                    described++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while attempting to describe all topics", e);
+        }
+        return described;
+    }
+
+
+    private static TopicDescription toTopicDescription(org.apache.kafka.clients.admin.TopicDescription description) {
+        List<TopicPartitionInfo> partitionInfos = Lists.newArrayListWithCapacity(description.partitions().size());
+        description.partitions().forEach(topicPartitionInfo -> {
+            TopicPartitionInfo info = TopicPartitionInfo
+                    .defineTopicForPartition(topicPartitionInfo.partition())
+                    .leader(topicPartitionInfo.leader())
+                    .replicas(topicPartitionInfo.replicas())
+                    .isr(topicPartitionInfo.isr())
+                    .build();
+            partitionInfos.add(info);
+        });
+        return new TopicDescription(description.name(), description.isInternal(), partitionInfos);
+    }
+
+
     /**
      * Attempt to list the topics,returning all of the names of
      * those topics that were listed by this request.
@@ -529,8 +737,79 @@ public class TopicAdmin implements AutoCloseable {
 
 
     public List<String> listBootstrapServers() {
+        return toBootstrapServers(listCluster());
+    }
+
+
+    public List<String> listBrokerIds() {
+        return toBrokerIds(listCluster());
+    }
+
+
+    public Map<String, Integer> getHostToIdInfo() {
+        return toHostToId(listCluster());
+    }
+
+    public Map<Integer, String> getIdToHostInfo() {
+        return toIdToHost(listCluster());
+    }
+
+
+    /**
+     * the cached variant of {@link #listCluster()}.
+     *
+     * @param cached true to answer from the metadata cache, refreshed when older than its ttl
+     * @return
+     */
+    public ClusterDescription listCluster(boolean cached) {
+        return cached ? metadataCache.cluster() : listCluster();
+    }
+
+
+    public List<String> listBootstrapServers(boolean cached) {
+        return toBootstrapServers(listCluster(cached));
+    }
+
+
+    public List<String> listBrokerIds(boolean cached) {
+        return toBrokerIds(listCluster(cached));
+    }
+
+
+    public Map<String, Integer> getHostToIdInfo(boolean cached) {
+        return toHostToId(listCluster(cached));
+    }
+
+
+    public Map<Integer, String> getIdToHostInfo(boolean cached) {
+        return toIdToHost(listCluster(cached));
+    }
+
+
+    /**
+     * @param topic
+     * @return partition -> the id of its leader, -1 if it has none; from the metadata cache
+     */
+    public Map<Integer, Integer> getPartitionLeaders(String topic) {
+        return metadataCache.leaders(topic);
+    }
+
+
+    /**
+     * drop the cached metadata, the next cached query reloads it.
+     */
+    public void invalidateMetadata() {
+        metadataCache.invalidate();
+    }
+
+
+    public ClusterMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+
+    private static List<String> toBootstrapServers(ClusterDescription description) {
         List<String> servers = Lists.newArrayList();
-        ClusterDescription description = listCluster();
         description.getClusterNode().forEach(clusterNode -> {
             servers.add(clusterNode.getHosts());
         });
@@ -538,9 +817,8 @@ public class TopicAdmin implements AutoCloseable {
     }
 
 
-    public List<String> listBrokerIds() {
+    private static List<String> toBrokerIds(ClusterDescription description) {
         List<String> brokerIds = Lists.newArrayList();
-        ClusterDescription description = listCluster();
         description.getClusterNode().forEach(clusterNode -> {
             brokerIds.add(clusterNode.getIdString());
         });
@@ -548,8 +826,7 @@ public class TopicAdmin implements AutoCloseable {
     }
 
 
-    public Map<String, Integer> getHostToIdInfo() {
-        ClusterDescription description = listCluster();
+    private static Map<String, Integer> toHostToId(ClusterDescription description) {
         Map<String, Integer> data = Maps.newHashMap();
         description.getClusterNode().forEach(clusterNode -> {
             data.put(clusterNode.getHosts(), Integer.valueOf(clusterNode.getIdString()));
@@ -557,8 +834,8 @@ public class TopicAdmin implements AutoCloseable {
         return data;
     }
 
-    public Map<Integer, String> getIdToHostInfo() {
-        ClusterDescription description = listCluster();
+
+    private static Map<Integer, String> toIdToHost(ClusterDescription description) {
         Map<Integer, String> data = Maps.newHashMap();
         description.getClusterNode().forEach(clusterNode -> {
             data.put(Integer.valueOf(clusterNode.getIdString()), clusterNode.getHosts());
@@ -0,0 +1,196 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Sample the records of a topic without scanning it. The samples are spread over the partitions in
+ * proportion to their retained records, and evenly over the retained offsets of every partition: the
+ * consumer seeks to every sample offset and fetches a single record. The partitions are sampled
+ * concurrently on the {@link ConsumerPool}.
+ */
+public class TopicSampler {
+
+    public static final Logger log = LoggerFactory.getLogger(TopicSampler.class);
+
+    public static final long POLL_TIMEOUT_MS = 500L;
+
+    /**
+     * fetch one record, and as few bytes after it as possible
+     */
+    private static final Map<String, Object> SAMPLING_CONFIGS = ImmutableMap.<String, Object>of(
+            ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1,
+            ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 64 * 1024);
+
+    private final String bootstrapServers;
+
+    private final ConsumerPool consumerPool;
+
+
+    public TopicSampler(String bootstrapServers) {
+        this(bootstrapServers, OffsetOperator.getConsumerPool());
+    }
+
+    public TopicSampler(String bootstrapServers, ConsumerPool consumerPool) {
+        this.bootstrapServers = bootstrapServers;
+        this.consumerPool = consumerPool;
+    }
+
+
+    /**
+     * @param topic
+     * @param samples the number of records wanted
+     * @return at most {@code samples} records, ordered by partition and offset
+     */
+    public List<ConsumerRecord<byte[], byte[]>> sample(String topic, int samples) {
+        Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+        try (ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers, SAMPLING_CONFIGS)) {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic);
+            if (partitionInfos == null) {
+                throw new ConnectException("Topic " + topic + " does not exist");
+            }
+            List<TopicPartition> partitions = Lists.newArrayList();
+            for (PartitionInfo info : partitionInfos) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            Map<TopicPartition, Long> logStartOffsets = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> logEndOffsets = consumer.endOffsets(partitions);
+            for (TopicPartition tp : partitions) {
+                ranges.put(tp, new long[]{logStartOffsets.get(tp), logEndOffsets.get(tp)});
+            }
+        }
+
+        Map<TopicPartition, Integer> allocation = allocate(ranges, samples);
+        List<Future<List<ConsumerRecord<byte[], byte[]>>>> futures = Lists.newArrayList();
+        for (Map.Entry<TopicPartition, Integer> entry : allocation.entrySet()) {
+            final TopicPartition tp = entry.getKey();
+            final long[] offsets = sampleOffsets(ranges.get(tp)[0], ranges.get(tp)[1], entry.getValue());
+            futures.add(consumerPool.submit(() -> sample(tp, offsets, ranges.get(tp)[1])));
+        }
+
+        List<ConsumerRecord<byte[], byte[]>> records = Lists.newArrayList();
+        for (Future<List<ConsumerRecord<byte[], byte[]>>> future : futures) {
+            try {
+                records.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted while sampling topic " + topic, e);
+            } catch (ExecutionException e) {
+                throw new ConnectException("Failed to sample topic " + topic, e.getCause());
+            }
+        }
+        return records;
+    }
+
+
+    /**
+     * split the samples between the partitions in proportion to their records, by the largest remainder.
+     *
+     * @param ranges  partition -> [log start offset, log end offset)
+     * @param samples
+     * @return partition -> the number of samples, only the partitions with at least one sample
+     */
+    public static Map<TopicPartition, Integer> allocate(Map<TopicPartition, long[]> ranges, int samples) {
+        long total = 0;
+        for (long[] range : ranges.values()) {
+            total += range[1] - range[0];
+        }
+        Map<TopicPartition, Integer> allocation = Maps.newLinkedHashMap();
+        if (total <= 0 || samples <= 0) {
+            return allocation;
+        }
+        int wanted = (int) Math.min(samples, total);
+
+        List<TopicPartition> partitions = Lists.newArrayList(ranges.keySet());
+        final double[] remainders = new double[partitions.size()];
+        int allocated = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            long[] range = ranges.get(partitions.get(i));
+            double exact = (double) wanted * (range[1] - range[0]) / total;
+            int count = (int) exact;
+            remainders[i] = exact - count;
+            allocation.put(partitions.get(i), count);
+            allocated += count;
+        }
+        List<Integer> order = Lists.newArrayList();
+        for (int i = 0; i < partitions.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int i = 0; allocated < wanted && i < order.size(); i++) {
+            TopicPartition tp = partitions.get(order.get(i));
+            long[] range = ranges.get(tp);
+            if (allocation.get(tp) < range[1] - range[0]) {
+                allocation.put(tp, allocation.get(tp) + 1);
+                allocated++;
+            }
+        }
+        allocation.values().removeIf(count -> count == 0);
+        return allocation;
+    }
+
+
+    /**
+     * @return {@code count} offsets in the middle of equal slices of [start, end)
+     */
+    public static long[] sampleOffsets(long start, long end, int count) {
+        long[] offsets = new long[count];
+        double step = (double) (end - start) / count;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = start + (long) (step * i + step / 2);
+        }
+        return offsets;
+    }
+
+
+    private List<ConsumerRecord<byte[], byte[]>> sample(TopicPartition tp, long[] offsets, long end) {
+        List<ConsumerRecord<byte[], byte[]>> records = Lists.newArrayListWithCapacity(offsets.length);
+        ConsumerPool.PooledConsumer pooled = consumerPool.borrow(bootstrapServers, SAMPLING_CONFIGS);
+        try {
+            KafkaConsumer<byte[], byte[]> consumer = pooled.get();
+            consumer.assign(Collections.singleton(tp));
+            long last = -1L;
+            for (long offset : offsets) {
+                if (offset <= last) {
+                    // the previous sample skipped over this one, e.g. in a compacted topic
+                    continue;
+                }
+                consumer.seek(tp, offset);
+                ConsumerRecords<byte[], byte[]> fetched = consumer.poll(POLL_TIMEOUT_MS);
+                for (ConsumerRecord<byte[], byte[]> record : fetched.records(tp)) {
+                    if (record.offset() < end) {
+                        records.add(record);
+                        last = record.offset();
+                    }
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            pooled.invalidate();
+            throw e;
+        } finally {
+            pooled.close();
+        }
+        return records;
+    }
+}
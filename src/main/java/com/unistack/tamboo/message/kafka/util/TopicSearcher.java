@@ -0,0 +1,92 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.unistack.tamboo.message.kafka.bean.Callback;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Search a topic, or a time window of it, for the records whose value matches a {@link BytePredicate}.
+ * The partitions are scanned in parallel by a {@link TimeRangeReader} and the predicate is tested on
+ * the scanning threads on the raw bytes, so only the matches are handed over. The search stops once
+ * the max number of matches is found.
+ */
+public class TopicSearcher implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(TopicSearcher.class);
+
+    public static final int DEFAULT_MAX_MATCHES = 1000;
+
+    public static final int DEFAULT_PARALLELISM = Math.max(1, Math.min(ConsumerPool.DEFAULT_MAX_PER_KEY,
+            Runtime.getRuntime().availableProcessors()));
+
+    private final TimeRangeReader reader;
+
+
+    public TopicSearcher(String bootstrapServers) {
+        this(new TimeRangeReader(bootstrapServers, OffsetOperator.getConsumerPool(), DEFAULT_PARALLELISM,
+                TimeRangeReader.DEFAULT_QUEUE_CAPACITY));
+    }
+
+    public TopicSearcher(TimeRangeReader reader) {
+        this.reader = reader;
+    }
+
+
+    /**
+     * search the whole topic.
+     *
+     * @param topic
+     * @param predicate  tested on the value of every record
+     * @param maxMatches the search stops after this many matches
+     * @param callback   invoked with every match, on the calling thread
+     * @return the number of matches
+     */
+    public long search(String topic, BytePredicate predicate, int maxMatches,
+                       Callback<ConsumerRecord<byte[], byte[]>> callback) {
+        return search(reader.resolve(topic), predicate, maxMatches, callback);
+    }
+
+
+    /**
+     * search the records written in a time window.
+     *
+     * @param topic
+     * @param startMs    the first timestamp, inclusive
+     * @param endMs      the last timestamp, exclusive
+     * @param predicate  tested on the value of every record
+     * @param maxMatches the search stops after this many matches
+     * @param callback   invoked with every match, on the calling thread
+     * @return the number of matches
+     */
+    public long search(String topic, long startMs, long endMs, BytePredicate predicate, int maxMatches,
+                       Callback<ConsumerRecord<byte[], byte[]>> callback) {
+        return search(reader.resolve(topic, startMs, endMs), predicate, maxMatches, callback);
+    }
+
+
+    private long search(Map<TopicPartition, long[]> ranges, BytePredicate predicate, int maxMatches,
+                        Callback<ConsumerRecord<byte[], byte[]>> callback) {
+        long matches = 0;
+        try (TimeRangeReader.RecordIterator it = reader.scan(ranges,
+                record -> record.value() != null && predicate.test(record.value()))) {
+            while (matches < maxMatches && it.hasNext()) {
+                callback.onCompletion(null, it.next());
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
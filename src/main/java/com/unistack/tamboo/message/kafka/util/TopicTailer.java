@@ -0,0 +1,449 @@
+package com.unistack.tamboo.message.kafka.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.unistack.tamboo.message.kafka.exceptions.ConnectException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.unistack.tamboo.message.kafka.util.CommonUtils.getSecurityProps;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Follow the new records of topics. Every followed topic is read by a single consumer, assigned to all
+ * the partitions from their log end, and the records are fanned out to the subscriptions through a
+ * bounded queue per subscription. A subscription which does not keep up loses records
+ * ({@link OverflowPolicy#DROP_NEWEST}, {@link OverflowPolicy#DROP_OLDEST}) or slows down the topic for
+ * everyone ({@link OverflowPolicy#BLOCK}) for at most {@code blockTimeoutMs} per poll of the topic. The
+ * consumer is closed with the last subscription of its topic.
+ */
+public class TopicTailer implements AutoCloseable {
+
+    public static final Logger log = LoggerFactory.getLogger(TopicTailer.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    public static final long DEFAULT_BLOCK_TIMEOUT_MS = 1000L;
+
+    public static final long POLL_TIMEOUT_MS = 500L;
+
+    /**
+     * how often the partitions of a followed topic are looked up, to pick up the added ones
+     */
+    public static final long PARTITION_REFRESH_MS = 60 * 1000L;
+
+    public enum OverflowPolicy {
+        /**
+         * the record which does not fit is lost
+         */
+        DROP_NEWEST,
+        /**
+         * the oldest queued record is lost to make room
+         */
+        DROP_OLDEST,
+        /**
+         * the shared consumer waits for room, up to what is left of the block timeout of the poll, then the
+         * record is lost; a subscription which timed out drops records without waiting until it has been
+         * drained, so that a stuck subscriber does not stall the topic poll after poll
+         */
+        BLOCK
+    }
+
+    private final String bootstrapServers;
+
+    private final long blockTimeoutMs;
+
+    private final ConcurrentMap<String, Tail> tails = new ConcurrentHashMap<>();
+
+    private final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+            .setNameFormat("topic-tailer-%d")
+            .setDaemon(true)
+            .build();
+
+    private boolean closed = false;
+
+
+    public TopicTailer(String bootstrapServers) {
+        this(bootstrapServers, DEFAULT_BLOCK_TIMEOUT_MS);
+    }
+
+    public TopicTailer(String bootstrapServers, long blockTimeoutMs) {
+        this.bootstrapServers = bootstrapServers;
+        this.blockTimeoutMs = blockTimeoutMs;
+    }
+
+
+    /**
+     * follow all the partitions of a topic.
+     */
+    public Subscription subscribe(String topic) {
+        return subscribe(topic, null, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+
+    /**
+     * @param topic
+     * @param partitions the partitions to follow, null for all of them
+     * @param capacity   the number of records the subscription queues before the policy applies
+     * @param policy
+     * @return the subscription, which receives the records written from now on
+     */
+    public synchronized Subscription subscribe(String topic, Collection<Integer> partitions, int capacity,
+                                               OverflowPolicy policy) {
+        if (closed) {
+            throw new ConnectException("The tailer is closed");
+        }
+        Subscription subscription = new Subscription(topic,
+                partitions == null ? null : Sets.newHashSet(partitions), capacity, policy);
+        Tail tail = tails.get(topic);
+        if (tail == null) {
+            tail = new Tail(topic);
+            tails.put(topic, tail);
+            tail.subscriptions.add(subscription);
+            tail.start();
+        } else {
+            tail.subscriptions.add(subscription);
+        }
+        log.debug("Subscribed to {}, {} subscription(s)", topic, tail.subscriptions.size());
+        return subscription;
+    }
+
+
+    private void unsubscribe(Subscription subscription) {
+        Tail stopping = null;
+        synchronized (this) {
+            Tail tail = tails.get(subscription.topic);
+            if (tail == null || !tail.subscriptions.remove(subscription)) {
+                return;
+            }
+            if (tail.subscriptions.isEmpty()) {
+                tails.remove(subscription.topic);
+                stopping = tail;
+            }
+        }
+        // joining the thread of the tail must not hold up the other topics
+        if (stopping != null) {
+            stopping.stop();
+        }
+    }
+
+
+    /**
+     * @return the number of subscriptions of every followed topic
+     */
+    public Map<String, Integer> subscriptions() {
+        Map<String, Integer> counts = Maps.newHashMap();
+        for (Map.Entry<String, Tail> entry : tails.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().subscriptions.size());
+        }
+        return counts;
+    }
+
+
+    @Override
+    public void close() {
+        List<Tail> stopping;
+        synchronized (this) {
+            closed = true;
+            stopping = Lists.newArrayList(tails.values());
+            tails.clear();
+        }
+        for (Tail tail : stopping) {
+            for (Subscription subscription : tail.subscriptions) {
+                subscription.closed = true;
+            }
+            tail.stop();
+        }
+    }
+
+
+    private KafkaConsumer<byte[], byte[]> createConsumer() {
+        Map<String, Object> configs = Maps.newHashMap();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        configs.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        configs.putAll(ConfigHelper.toMap(getSecurityProps(bootstrapServers)));
+        return new KafkaConsumer<>(configs);
+    }
+
+
+    /**
+     * the consumer of a followed topic and its subscriptions.
+     */
+    private class Tail implements Runnable {
+
+        private final String topic;
+
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+        private final KafkaConsumer<byte[], byte[]> consumer;
+
+        private final Thread thread;
+
+        private volatile boolean stopping = false;
+
+        private Set<TopicPartition> assigned = Sets.newHashSet();
+
+        private long lastRefreshMs = 0L;
+
+
+        Tail(String topic) {
+            this.topic = topic;
+            this.consumer = createConsumer();
+            this.thread = threadFactory.newThread(this);
+        }
+
+
+        void start() {
+            thread.start();
+        }
+
+
+        void stop() {
+            stopping = true;
+            consumer.wakeup();
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join(POLL_TIMEOUT_MS * 4);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+
+        @Override
+        public void run() {
+            try {
+                while (!stopping) {
+                    refreshPartitions();
+                    if (assigned.isEmpty()) {
+                        Thread.sleep(POLL_TIMEOUT_MS);
+                        continue;
+                    }
+                    ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT_MS);
+                    // the blocking subscriptions share one timeout per poll
+                    long blockDeadline = System.currentTimeMillis() + blockTimeoutMs;
+                    for (ConsumerRecord<byte[], byte[]> record : records) {
+                        for (Subscription subscription : subscriptions) {
+                            subscription.offer(record, blockDeadline);
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // stopped
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("Unexpected exception while following {}", topic, t);
+                // under the lock of subscribe(), so that no subscription is added to the dead tail; the
+                // tail thread is never joined under this lock
+                synchronized (TopicTailer.this) {
+                    for (Subscription subscription : subscriptions) {
+                        subscription.error = t;
+                        subscription.closed = true;
+                    }
+                    tails.remove(topic, this);
+                }
+            } finally {
+                try {
+                    consumer.close();
+                } catch (Throwable t) {
+                    log.warn("Failed to close the consumer of {}", topic, t);
+                }
+            }
+        }
+
+
+        /**
+         * the existing partitions are followed from their log end, the added ones from the beginning so
+         * that nothing written to them is missed.
+         */
+        private void refreshPartitions() {
+            long now = System.currentTimeMillis();
+            if (!assigned.isEmpty() && now - lastRefreshMs < PARTITION_REFRESH_MS) {
+                return;
+            }
+            lastRefreshMs = now;
+            List<PartitionInfo> infos = consumer.partitionsFor(topic);
+            if (infos == null) {
+                return;
+            }
+            Set<TopicPartition> partitions = Sets.newHashSet();
+            for (PartitionInfo info : infos) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            if (partitions.equals(assigned)) {
+                return;
+            }
+            Set<TopicPartition> added = Sets.newHashSet(Sets.difference(partitions, assigned));
+            boolean initial = assigned.isEmpty();
+            consumer.assign(partitions);
+            if (initial) {
+                consumer.seekToEnd(added);
+            } else {
+                consumer.seekToBeginning(added);
+            }
+            assigned = partitions;
+            log.debug("Following {} partition(s) of {}", assigned.size(), topic);
+        }
+    }
+
+
+    /**
+     * the records of a topic delivered to one subscriber, drained with {@link #poll(long, TimeUnit)}.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private final String topic;
+
+        private final Set<Integer> partitions;
+
+        private final BlockingQueue<ConsumerRecord<byte[], byte[]>> queue;
+
+        private final OverflowPolicy policy;
+
+        private final AtomicLong delivered = new AtomicLong();
+
+        private final AtomicLong dropped = new AtomicLong();
+
+        private volatile boolean closed = false;
+
+        private volatile Throwable error;
+
+        /**
+         * set when a blocking offer timed out, cleared once the subscriber drained the queue
+         */
+        private volatile boolean stalled = false;
+
+
+        Subscription(String topic, Set<Integer> partitions, int capacity, OverflowPolicy policy) {
+            this.topic = topic;
+            this.partitions = partitions;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.policy = policy;
+        }
+
+
+        /**
+         * called by the thread of the topic only.
+         *
+         * @param blockDeadline until when a blocking subscription may wait for room
+         */
+        void offer(ConsumerRecord<byte[], byte[]> record, long blockDeadline) throws InterruptedException {
+            if (closed || (partitions != null && !partitions.contains(record.partition()))) {
+                return;
+            }
+            boolean queued;
+            switch (policy) {
+                case DROP_OLDEST:
+                    queued = queue.offer(record);
+                    while (!queued) {
+                        if (queue.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                        queued = queue.offer(record);
+                    }
+                    break;
+                case BLOCK:
+                    long waitMs = stalled ? 0 : blockDeadline - System.currentTimeMillis();
+                    queued = waitMs > 0 ? queue.offer(record, waitMs, TimeUnit.MILLISECONDS) : queue.offer(record);
+                    if (!queued && !stalled) {
+                        stalled = true;
+                        log.warn("A subscription of {} does not keep up, drop its records until it is drained", topic);
+                    }
+                    break;
+                default:
+                    queued = queue.offer(record);
+            }
+            if (queued) {
+                delivered.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+
+
+        /**
+         * @param timeout how long to wait for the first record
+         * @param unit
+         * @return the queued records, empty if none arrived in time
+         * @throws ConnectException if the consumer of the topic failed
+         */
+        public List<ConsumerRecord<byte[], byte[]>> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            if (error != null) {
+                throw new ConnectException("Failed to follow topic " + topic, error);
+            }
+            List<ConsumerRecord<byte[], byte[]>> records = Lists.newArrayList();
+            ConsumerRecord<byte[], byte[]> first = queue.poll(timeout, unit);
+            if (first != null) {
+                records.add(first);
+                queue.drainTo(records);
+            }
+            if (queue.isEmpty()) {
+                stalled = false;
+            }
+            return records;
+        }
+
+
+        public String topic() {
+            return topic;
+        }
+
+
+        /**
+         * @return the number of records queued for the subscription
+         */
+        public long delivered() {
+            return delivered.get();
+        }
+
+
+        /**
+         * @return the number of records lost because the queue was full
+         */
+        public long dropped() {
+            return dropped.get();
+        }
+
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+
+        @Override
+        public void close() {
+            closed = true;
+            unsubscribe(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.unistack.tamboo.message.kafka.test.bean;
+
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffsetTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ * <p>
+ * Compare the allocation rate of a sweep of 30k partitions collected as a list of {@link ConsumerOffset},
+ * with the regex compiled for every row as before, and as a {@link ConsumerOffsetTable}.
+ * Run the main method and look at {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsumerOffsetTableBenchmark {
+
+    private static final int ROWS = 30000;
+
+    private static final int GROUPS = 800;
+
+    private static final int PARTITIONS_PER_TOPIC = 12;
+
+    private String[] groups;
+
+    private String[] topics;
+
+    private String[] consumerIds;
+
+    @Setup
+    public void setup() {
+        groups = new String[ROWS];
+        topics = new String[ROWS];
+        consumerIds = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            int group = i % GROUPS;
+            int topic = i / PARTITIONS_PER_TOPIC;
+            groups[i] = "group-" + group;
+            topics[i] = "topic-" + topic;
+            consumerIds[i] = "consumer_" + (1000 + group) + "@host-" + group + "_" + (10 + i % 4)
+                    + "-6b1c6f2e-0a5d-4b7e-9a53-" + group + "_/192.168.1." + (group % 250);
+        }
+    }
+
+    @Benchmark
+    public void legacyList(Blackhole bh) {
+        List<LegacyConsumerOffset> list = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            list.add(new LegacyConsumerOffset(groups[i], topics[i], i % PARTITIONS_PER_TOPIC, i, i + 100, 0, consumerIds[i]));
+        }
+        bh.consume(list);
+    }
+
+    @Benchmark
+    public void consumerOffsetList(Blackhole bh) {
+        List<ConsumerOffset> list = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            list.add(new ConsumerOffset(groups[i], topics[i], i % PARTITIONS_PER_TOPIC, i, i + 100, 0, consumerIds[i]));
+        }
+        bh.consume(list);
+    }
+
+    @Benchmark
+    public void columnarTable(Blackhole bh) {
+        ConsumerOffsetTable table = new ConsumerOffsetTable(ROWS, 0L);
+        for (int i = 0; i < ROWS; i++) {
+            table.add(groups[i], topics[i], i % PARTITIONS_PER_TOPIC, i, i + 100, 0, consumerIds[i]);
+        }
+        bh.consume(table);
+    }
+
+
+    /**
+     * the consumer id handling of {@link ConsumerOffset} before it used a precompiled, cached parser.
+     */
+    static class LegacyConsumerOffset {
+        String group;
+        String topic;
+        int partition;
+        long offset;
+        long logEndOffset;
+        long logStartOffset;
+        long timestamp;
+        String consumerId;
+        String ip;
+        String pid;
+        String tid;
+
+        LegacyConsumerOffset(String group, String topic, int partition, long offset, long logEndOffset,
+                             long logStartOffset, String consumerId) {
+            this.group = group;
+            this.topic = topic;
+            this.partition = partition;
+            this.offset = offset;
+            this.logEndOffset = logEndOffset;
+            this.logStartOffset = logStartOffset;
+            this.timestamp = System.currentTimeMillis();
+            this.consumerId = consumerId;
+            Matcher matcher = Pattern.compile("(.*)_([0-9]+)@(.*)_([0-9]+)-(.*)_(.*)").matcher(consumerId);
+            if (matcher.find()) {
+                ip = matcher.group(6).replaceAll("\\/", "");
+                pid = matcher.group(2);
+                tid = matcher.group(4);
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConsumerOffsetTableBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.unistack.tamboo.message.kafka.test.lag;
+
+import com.unistack.tamboo.message.kafka.lag.LagHistoryStore;
+import com.unistack.tamboo.message.kafka.lag.LagSeries;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class LagHistoryStoreTest {
+
+    @Test
+    public void rates() {
+        LagHistoryStore store = new LagHistoryStore(16);
+        // produce 200 msg/s, consume 300 msg/s
+        for (int i = 0; i <= 10; i++) {
+            store.record("g", "t", 2, i * 1000L, 1000 + i * 300L, 5000 + i * 200L);
+        }
+        Assert.assertEquals(300D, store.consumeRate("g", "t", 2, 5000, 10000), 0.001);
+        Assert.assertEquals(200D, store.produceRate("g", "t", 2, 5000, 10000), 0.001);
+        Assert.assertEquals(3000L, store.lag("g", "t", 2));
+        Assert.assertEquals(30000L, store.timeToCatchUpMs("g", "t", 2, 5000, 10000));
+        Assert.assertEquals(-1L, store.lag("g", "t", 0));
+        Assert.assertEquals(-1L, store.lag("other", "t", 2));
+    }
+
+    @Test
+    public void ringBufferWrapsAround() {
+        LagSeries series = new LagSeries(4);
+        for (int i = 0; i < 10; i++) {
+            series.add(i, i, i * 2);
+        }
+        series.add(5, 0, 0);
+        Assert.assertEquals(4, series.size());
+        Assert.assertEquals(6, series.timestampAt(0));
+        Assert.assertEquals(9, series.timestampAt(3));
+        Assert.assertEquals(9, series.lag());
+        Assert.assertEquals(2, series.indexOf(8));
+    }
+}
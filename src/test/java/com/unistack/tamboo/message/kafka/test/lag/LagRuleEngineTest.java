@@ -0,0 +1,71 @@
+package com.unistack.tamboo.message.kafka.test.lag;
+
+import com.google.common.collect.Lists;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.lag.LagEvent;
+import com.unistack.tamboo.message.kafka.lag.LagRule;
+import com.unistack.tamboo.message.kafka.lag.LagRuleEngine;
+import com.unistack.tamboo.message.kafka.lag.LagSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class LagRuleEngineTest {
+
+    @Test
+    public void hysteresis() {
+        LagRuleEngine engine = new LagRuleEngine();
+        engine.addRule(LagRule.define("lag").topic("t").raiseAt(1000).clearAt(500).build());
+
+        LagSnapshot snapshot = null;
+        long[] lags = {100, 1200, 800, 1100, 400, 400};
+        LagEvent.State[] expected = {null, LagEvent.State.RAISED, null, null, LagEvent.State.CLEARED, null};
+        for (int i = 0; i < lags.length; i++) {
+            // two partitions share the lag
+            snapshot = new LagSnapshot(i * 1000L, Lists.newArrayList(
+                    offset("g", "t", 0, 10000, lags[i] / 2, i * 1000L),
+                    offset("g", "t", 1, 10000, lags[i] - lags[i] / 2, i * 1000L)), snapshot);
+            List<LagEvent> events = engine.evaluate(snapshot);
+            if (expected[i] == null) {
+                Assert.assertTrue("sweep " + i + ": " + events, events.isEmpty());
+            } else {
+                Assert.assertEquals("sweep " + i, 1, events.size());
+                Assert.assertEquals(expected[i], events.get(0).getState());
+                Assert.assertEquals(lags[i], events.get(0).getValue(), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void clearedWhenGone() {
+        LagRuleEngine engine = new LagRuleEngine();
+        engine.addRule(LagRule.define("lag").group("g").raiseAt(10).build());
+        engine.addRule(LagRule.define("other").group("other").raiseAt(10).build());
+
+        LagSnapshot first = new LagSnapshot(0L, Lists.newArrayList(offset("g", "t", 0, 100, 50, 0L)), null);
+        List<LagEvent> events = engine.evaluate(first);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("lag", events.get(0).getRule().id());
+
+        // nothing changed, nothing published again
+        LagSnapshot second = new LagSnapshot(1000L, Lists.newArrayList(offset("g", "t", 0, 100, 50, 1000L)), first);
+        Assert.assertTrue(engine.evaluate(second).isEmpty());
+
+        LagSnapshot third = new LagSnapshot(2000L, Lists.<ConsumerOffset>newArrayList(), second);
+        events = engine.evaluate(third);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(LagEvent.State.CLEARED, events.get(0).getState());
+        Assert.assertTrue(engine.raised("g", "t").isEmpty());
+    }
+
+    private static ConsumerOffset offset(String group, String topic, int partition, long logEnd, long lag, long ts) {
+        ConsumerOffset offset = new ConsumerOffset(group, topic, partition, logEnd - lag, logEnd, 0L, "");
+        offset.setTimestamp(ts);
+        return offset;
+    }
+}
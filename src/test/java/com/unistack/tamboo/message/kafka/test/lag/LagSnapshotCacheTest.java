@@ -0,0 +1,118 @@
+package com.unistack.tamboo.message.kafka.test.lag;
+
+import com.google.common.collect.Lists;
+import com.unistack.tamboo.message.kafka.bean.ConsumerOffset;
+import com.unistack.tamboo.message.kafka.lag.LagSnapshot;
+import com.unistack.tamboo.message.kafka.lag.LagSnapshotCache;
+import com.unistack.tamboo.message.kafka.storage.OffsetBackingStore;
+import com.unistack.tamboo.message.kafka.util.Time;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class LagSnapshotCacheTest {
+
+    @Test
+    public void concurrentReadersShareOneRefresh() throws Exception {
+        CountingStore store = new CountingStore(100);
+        LagSnapshotCache cache = new LagSnapshotCache(store, 60000L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<LagSnapshot>> snapshots = Lists.newArrayList();
+            for (int i = 0; i < 8; i++) {
+                snapshots.add(executor.submit(cache::get));
+            }
+            for (Future<LagSnapshot> snapshot : snapshots) {
+                Assert.assertNotNull(snapshot.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, store.sweeps.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void staleSnapshotIsRefreshed() {
+        ManualTime time = new ManualTime();
+        CountingStore store = new CountingStore(0);
+        LagSnapshotCache cache = new LagSnapshotCache(store, 1000L, time);
+
+        LagSnapshot first = cache.get();
+        time.now.addAndGet(1000);
+        Assert.assertSame(first, cache.get());
+        time.now.addAndGet(1);
+        Assert.assertNotSame(first, cache.get());
+        Assert.assertEquals(2, store.sweeps.get());
+    }
+
+
+    private static class CountingStore implements OffsetBackingStore {
+
+        private final AtomicInteger sweeps = new AtomicInteger();
+
+        private final long sweepMs;
+
+        CountingStore(long sweepMs) {
+            this.sweepMs = sweepMs;
+        }
+
+        @Override
+        public List<ConsumerOffset> getConsumerGroups() {
+            sweeps.incrementAndGet();
+            try {
+                Thread.sleep(sweepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Lists.newArrayList();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+
+    private static class ManualTime implements Time {
+
+        private final AtomicLong now = new AtomicLong(1000000L);
+
+        @Override
+        public long milliseconds() {
+            return now.get();
+        }
+
+        @Override
+        public Date getDate() {
+            return new Date(now.get());
+        }
+
+        @Override
+        public long hiResClockMs() {
+            return now.get();
+        }
+
+        @Override
+        public long nanoseconds() {
+            return TimeUnit.MILLISECONDS.toNanos(now.get());
+        }
+
+        @Override
+        public void sleep(long ms) {
+            now.addAndGet(ms);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.unistack.tamboo.message.kafka.test.monitor;
+
+import com.unistack.tamboo.message.kafka.monitor.LogDirAnalyzer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class LogDirAnalyzerTest {
+
+    private static final TopicPartition A0 = new TopicPartition("a", 0);
+
+    private static final TopicPartition B0 = new TopicPartition("b", 0);
+
+    private static Map<String, DescribeLogDirsResponse.LogDirInfo> dir(String name, Object... replicas) {
+        Map<TopicPartition, DescribeLogDirsResponse.ReplicaInfo> infos = new HashMap<>();
+        for (int i = 0; i < replicas.length; i += 2) {
+            infos.put((TopicPartition) replicas[i],
+                    new DescribeLogDirsResponse.ReplicaInfo((Long) replicas[i + 1], 0L, false));
+        }
+        Map<String, DescribeLogDirsResponse.LogDirInfo> dirs = new HashMap<>();
+        dirs.put(name, new DescribeLogDirsResponse.LogDirInfo(Errors.NONE, infos));
+        return dirs;
+    }
+
+    @Test
+    public void rollupsAndDeltas() {
+        LogDirAnalyzer analyzer = new LogDirAnalyzer();
+        Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> poll = new HashMap<>();
+        poll.put(1, dir("/d1", A0, 100L, B0, 10L));
+        poll.put(2, dir("/d1", A0, 60L));
+        LogDirAnalyzer.Delta first = analyzer.update(poll, 1000L);
+
+        Assert.assertEquals(3, first.getAddedReplicas());
+        Assert.assertEquals(160L, (long) analyzer.topicBytes().get("a"));
+        Assert.assertEquals(110L, (long) analyzer.brokerBytes().get(1));
+        Assert.assertEquals(60L, (long) analyzer.logDirBytes().get(2).get("/d1"));
+        Assert.assertEquals(A0, analyzer.topPartitions(1).get(0).getPartition());
+        Assert.assertEquals(0.4, analyzer.partition(A0).getSkew(), 1e-9);
+
+        poll.put(2, dir("/d1", A0, 100L));
+        poll.put(1, dir("/d1", A0, 100L));
+        LogDirAnalyzer.Delta second = analyzer.update(poll, 61000L);
+
+        Assert.assertEquals(60000L, second.getElapsedMs());
+        Assert.assertEquals(1, second.getChangedReplicas());
+        Assert.assertEquals(1, second.getRemovedReplicas());
+        Assert.assertEquals(-10L, (long) second.getTopicGrowth().get("b"));
+        Assert.assertEquals(40L, (long) second.getBrokerGrowth().get(2));
+        Assert.assertNull(analyzer.topicBytes().get("b"));
+        Assert.assertEquals(0.0, analyzer.partition(A0).getSkew(), 1e-9);
+        Assert.assertEquals(0.0, analyzer.brokerSkew(), 1e-9);
+    }
+
+    @Test
+    public void replicaMovedBetweenLogDirs() {
+        LogDirAnalyzer analyzer = new LogDirAnalyzer();
+        Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> poll = new HashMap<>();
+        Map<String, DescribeLogDirsResponse.LogDirInfo> dirs = dir("/d1", A0, 100L);
+        dirs.putAll(dir("/d2"));
+        poll.put(1, dirs);
+        analyzer.update(poll, 0L);
+
+        dirs = dir("/d1");
+        dirs.putAll(dir("/d2", A0, 100L));
+        poll.put(1, dirs);
+        analyzer.update(poll, 1L);
+
+        Assert.assertEquals(1, analyzer.partition(A0).getReplicas());
+        Assert.assertEquals(100L, (long) analyzer.logDirBytes().get(1).get("/d2"));
+        Assert.assertEquals(0L, (long) analyzer.logDirBytes().get(1).get("/d1"));
+        Assert.assertEquals(100L, (long) analyzer.brokerBytes().get(1));
+    }
+}
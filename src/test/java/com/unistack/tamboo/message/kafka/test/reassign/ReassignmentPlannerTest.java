@@ -0,0 +1,101 @@
+package com.unistack.tamboo.message.kafka.test.reassign;
+
+import com.unistack.tamboo.message.kafka.reassign.ClusterLayout;
+import com.unistack.tamboo.message.kafka.reassign.PartitionMove;
+import com.unistack.tamboo.message.kafka.reassign.ReassignmentPlan;
+import com.unistack.tamboo.message.kafka.reassign.ReassignmentPlanner;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class ReassignmentPlannerTest {
+
+    /**
+     * 3 brokers on racks a, a, b with 12 partitions of 2 replicas, then broker 4 on rack b is added.
+     */
+    private static ClusterLayout layoutWithNewBroker() {
+        Map<Integer, String> racks = new HashMap<>();
+        racks.put(1, "a");
+        racks.put(2, "a");
+        racks.put(3, "b");
+        racks.put(4, "b");
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        Map<TopicPartition, Long> sizes = new HashMap<>();
+        for (int p = 0; p < 12; p++) {
+            TopicPartition tp = new TopicPartition("t", p);
+            assignment.put(tp, p % 2 == 0 ? Arrays.asList(1, 3) : Arrays.asList(2, 3));
+            sizes.put(tp, 1000L * (p + 1));
+        }
+        return new ClusterLayout(racks, assignment, sizes);
+    }
+
+    @Test
+    public void balancesOntoNewBrokerKeepingRacks() {
+        ClusterLayout layout = layoutWithNewBroker();
+        ReassignmentPlan plan = new ReassignmentPlanner(0.1, 1000).plan(layout);
+
+        Assert.assertFalse(plan.isEmpty());
+        Assert.assertEquals(0L, (long) plan.getCurrentLoad().get(4));
+        Assert.assertTrue(plan.getTargetLoad().get(4) > 0);
+        Assert.assertTrue(plan.getTargetLoad().get(3) < plan.getCurrentLoad().get(3));
+        for (PartitionMove move : plan.getMoves()) {
+            Set<String> racks = new HashSet<>();
+            for (Integer broker : move.getTargetReplicas()) {
+                racks.add(layout.rackOf(broker));
+            }
+            Assert.assertEquals(move.getTargetReplicas().size(), racks.size());
+        }
+        // about half of the replicas of broker 3 move to broker 4, nothing else has to move
+        long total = 0;
+        for (Long size : layout.getSizes().values()) {
+            total += size;
+        }
+        Assert.assertTrue(plan.getBytesMoved() <= total / 2 + 2000);
+    }
+
+    @Test
+    public void deterministic() {
+        ReassignmentPlan first = new ReassignmentPlanner().plan(layoutWithNewBroker());
+        ReassignmentPlan second = new ReassignmentPlanner().plan(layoutWithNewBroker());
+        Assert.assertEquals(first.getMoves().toString(), second.getMoves().toString());
+        Assert.assertEquals(ReassignmentPlan.toReassignmentJson(first.getMoves()),
+                ReassignmentPlan.toReassignmentJson(second.getMoves()));
+    }
+
+    @Test
+    public void repairsReplicasOnTheSameRack() {
+        Map<Integer, String> racks = new HashMap<>();
+        racks.put(1, "a");
+        racks.put(2, "a");
+        racks.put(3, "b");
+        Map<TopicPartition, List<Integer>> assignment = new HashMap<>();
+        TopicPartition tp = new TopicPartition("t", 0);
+        assignment.put(tp, Arrays.asList(1, 2));
+        ReassignmentPlan plan = new ReassignmentPlanner().plan(new ClusterLayout(racks, assignment, new HashMap<>()));
+        Assert.assertEquals(1, plan.getMoves().size());
+        Assert.assertEquals(Arrays.asList(1, 3), plan.getMoves().get(0).getTargetReplicas());
+    }
+
+    @Test
+    public void waves() {
+        ReassignmentPlan plan = new ReassignmentPlanner(0.1, 1000).plan(layoutWithNewBroker());
+        List<List<PartitionMove>> waves = plan.waves(Long.MAX_VALUE, 2);
+        int moves = 0;
+        for (List<PartitionMove> wave : waves) {
+            Assert.assertTrue(wave.size() <= 2);
+            moves += wave.size();
+        }
+        Assert.assertEquals(plan.getMoves().size(), moves);
+    }
+}
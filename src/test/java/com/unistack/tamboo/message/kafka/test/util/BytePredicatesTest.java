@@ -0,0 +1,52 @@
+package com.unistack.tamboo.message.kafka.test.util;
+
+import com.unistack.tamboo.message.kafka.util.BytePredicate;
+import com.unistack.tamboo.message.kafka.util.BytePredicates;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class BytePredicatesTest {
+
+    private static final byte[] ORDER = bytes("{\"id\":1,\"tags\":[\"a\",{\"id\":\"x\"}],\"order\":{\"meta\":{\"id\":\"A-42\"},\"id\":\"A-42-1\",\"paid\":true}}");
+
+    @Test
+    public void contains() {
+        Assert.assertTrue(BytePredicates.contains("A-42-1").test(ORDER));
+        Assert.assertTrue(BytePredicates.contains("{").test(ORDER));
+        Assert.assertFalse(BytePredicates.contains("A-43").test(ORDER));
+        Assert.assertTrue(BytePredicates.contains("订单").test(bytes("新订单: 1")));
+        Assert.assertFalse(BytePredicates.contains("longer than the input").test(bytes("short")));
+    }
+
+    @Test
+    public void matches() {
+        Assert.assertTrue(BytePredicates.matches("A-\\d+-\\d").test(ORDER));
+        Assert.assertFalse(BytePredicates.matches("^A-").test(ORDER));
+    }
+
+    @Test
+    public void jsonPathEquals() {
+        Assert.assertTrue(BytePredicates.jsonPathEquals("$.order.id", "A-42-1").test(ORDER));
+        Assert.assertTrue(BytePredicates.jsonPathEquals("order.meta.id", "A-42").test(ORDER));
+        Assert.assertTrue(BytePredicates.jsonPathEquals("$.order.paid", "true").test(ORDER));
+        Assert.assertTrue(BytePredicates.jsonPathEquals("$.id", "1").test(ORDER));
+        // the value is in the bytes, but not at the path
+        Assert.assertFalse(BytePredicates.jsonPathEquals("$.order.id", "A-42").test(ORDER));
+        Assert.assertFalse(BytePredicates.jsonPathEquals("$.order", "A-42-1").test(ORDER));
+        Assert.assertFalse(BytePredicates.jsonPathEquals("$.id", "1").test(bytes("not json 1")));
+
+        BytePredicate both = BytePredicates.jsonPathEquals("$.order.paid", "true").and(BytePredicates.contains("A-42"));
+        Assert.assertTrue(both.test(ORDER));
+        Assert.assertFalse(both.negate().test(ORDER));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
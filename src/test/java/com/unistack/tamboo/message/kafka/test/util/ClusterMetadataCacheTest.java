@@ -0,0 +1,117 @@
+package com.unistack.tamboo.message.kafka.test.util;
+
+import com.unistack.tamboo.message.kafka.util.ClusterMetadataCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class ClusterMetadataCacheTest {
+
+    @Test
+    public void singleFlight() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ClusterMetadataCache.Loader<Integer> loader = new ClusterMetadataCache.Loader<>(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return 42;
+        }, 60000L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Integer> first = executor.submit(loader::get);
+            waitFor(loads, 1);
+            Future<Integer> second = executor.submit(loader::get);
+            Future<Integer> third = executor.submit(loader::get);
+            Thread.sleep(100);
+            release.countDown();
+
+            Assert.assertEquals(42, (int) first.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(42, (int) second.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(42, (int) third.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(1, loads.get());
+            Assert.assertEquals(42, (int) loader.get());
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void invalidateDuringLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ClusterMetadataCache.Loader<Integer> loader = new ClusterMetadataCache.Loader<>(() -> {
+            int load = loads.incrementAndGet();
+            if (load == 1) {
+                await(release);
+            }
+            return load;
+        }, 60000L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> stale = executor.submit(loader::get);
+            waitFor(loads, 1);
+            loader.invalidate();
+
+            // arriving after the invalidation, does not join the load in flight
+            Assert.assertEquals(2, (int) executor.submit(loader::get).get(5, TimeUnit.SECONDS));
+
+            release.countDown();
+            // the invalidated load is not returned to its own caller either
+            Assert.assertTrue(stale.get(5, TimeUnit.SECONDS) >= 2);
+            Assert.assertEquals(2, (int) loader.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void failedLoadIsRetried() {
+        AtomicInteger loads = new AtomicInteger();
+        ClusterMetadataCache.Loader<Integer> loader = new ClusterMetadataCache.Loader<>(() -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("unavailable");
+            }
+            return 7;
+        }, 60000L);
+
+        try {
+            loader.get();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(7, (int) loader.get());
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static void waitFor(AtomicInteger counter, int value) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.get() < value && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.unistack.tamboo.message.kafka.test.util;
+
+import com.unistack.tamboo.message.kafka.util.OffsetTimeIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class OffsetTimeIndexTest {
+
+    @Test
+    public void interpolate() {
+        OffsetTimeIndex index = new OffsetTimeIndex(8);
+        index.add(100, 1000);
+        index.add(200, 2000);
+        Assert.assertEquals(1500, index.timestampOf(150));
+        Assert.assertEquals(2000, index.timestampOf(200));
+        Assert.assertEquals(-1, index.timestampOf(99));
+        Assert.assertEquals(-1, index.timestampOf(201));
+    }
+
+    @Test
+    public void rejectContradictingSamples() {
+        OffsetTimeIndex index = new OffsetTimeIndex(8);
+        index.add(100, 1000);
+        index.add(200, 3000);
+        index.add(300, 2000);
+        index.add(50, 5000);
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(200, index.offsetAt(1));
+        Assert.assertEquals(3000, index.timestampAt(1));
+
+        index.add(200, 500);
+        Assert.assertEquals(3000, index.timestampAt(1));
+        index.add(200, 2000);
+        Assert.assertEquals(2000, index.timestampAt(1));
+    }
+
+    @Test
+    public void boundedAndKeepsHead() {
+        OffsetTimeIndex index = new OffsetTimeIndex(4);
+        for (int i = 0; i < 100; i++) {
+            index.add(i * 10, i * 100);
+        }
+        Assert.assertEquals(4, index.size());
+        Assert.assertEquals(990, index.offsetAt(3));
+        Assert.assertEquals(0, index.offsetAt(0));
+    }
+
+    @Test
+    public void truncateAndSearchByTimestamp() {
+        OffsetTimeIndex index = new OffsetTimeIndex(8);
+        index.add(10, 100);
+        index.add(20, 200);
+        index.add(30, 300);
+        Assert.assertEquals(0, index.floorByTimestamp(150));
+        Assert.assertEquals(1, index.ceilingByTimestamp(150));
+        Assert.assertEquals(-1, index.ceilingByTimestamp(301));
+
+        index.truncateBefore(20);
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(20, index.offsetAt(0));
+    }
+}
@@ -0,0 +1,55 @@
+package com.unistack.tamboo.message.kafka.test.util;
+
+import com.unistack.tamboo.message.kafka.util.TimeIndexCache;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class TimeIndexCacheTest {
+
+    private static final TopicPartition TP0 = new TopicPartition("t", 0);
+
+    private static final TopicPartition TP1 = new TopicPartition("t", 1);
+
+    private static final TopicPartition TP2 = new TopicPartition("t", 2);
+
+    @Test
+    public void exactAfterLookup() {
+        TimeIndexCache cache = new TimeIndexCache(null, null, 16, 16, 0);
+        cache.recordLookup(TP0, 1000, 50, 1200);
+        Assert.assertEquals(50, cache.lookup(TP0, 1000));
+        Assert.assertEquals(50, cache.lookup(TP0, 1200));
+        Assert.assertEquals(-1, cache.lookup(TP0, 999));
+        Assert.assertEquals(-1, cache.lookup(TP0, 1201));
+    }
+
+    @Test
+    public void boundedError() {
+        TimeIndexCache exact = new TimeIndexCache(null, null, 16, 16, 0);
+        TimeIndexCache approximate = new TimeIndexCache(null, null, 16, 16, 100);
+        for (TimeIndexCache cache : new TimeIndexCache[]{exact, approximate}) {
+            cache.recordSample(TP0, 0, 0);
+            cache.recordSample(TP0, 100, 1000);
+            cache.recordSample(TP0, 101, 1001);
+        }
+        Assert.assertEquals(-1, exact.lookup(TP0, 500));
+        Assert.assertEquals(100, approximate.lookup(TP0, 500));
+        Assert.assertEquals(101, exact.lookup(TP0, 1001));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedPartition() {
+        TimeIndexCache cache = new TimeIndexCache(null, null, 2, 16, 0);
+        cache.recordLookup(TP0, 1000, 50, 1000);
+        cache.recordLookup(TP1, 1000, 50, 1000);
+        Assert.assertEquals(50, cache.lookup(TP0, 1000));
+        cache.recordLookup(TP2, 1000, 50, 1000);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(50, cache.lookup(TP0, 1000));
+        Assert.assertEquals(-1, cache.lookup(TP1, 1000));
+    }
+}
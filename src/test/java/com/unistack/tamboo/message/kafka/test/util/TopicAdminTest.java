@@ -2,6 +2,7 @@ package com.unistack.tamboo.message.kafka.test.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unistack.tamboo.message.kafka.bean.TopicProvisionResult;
 import com.unistack.tamboo.message.kafka.util.TopicAdmin;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.common.acl.AclBinding;
@@ -74,6 +75,29 @@ public class TopicAdminTest {
     }
 
 
+    @Test
+    public void provisionTopics() {
+        List<NewTopic> topics = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            topics.add(TopicAdmin.defineTopic("tenant-" + i).partitions(1).replicationFactor((short) 1).build());
+        }
+        Map<String, TopicProvisionResult> results = topicAdmin.provisionTopics(topics, 3, 2);
+        Assert.assertEquals(10, results.size());
+        System.out.println(results.values());
+    }
+
+
+    @Test
+    public void describeAllTopics() {
+        Set<String> names = new HashSet<>();
+        int described = topicAdmin.describeAllTopics(2, 2, (error, description) -> {
+            Assert.assertNull(error);
+            Assert.assertTrue(names.add(description.getName()));
+        });
+        Assert.assertEquals(names.size(), described);
+    }
+
+
     @Test
     public void describeAclTopic() {
         List<AclBinding> aclBindingList = topicAdmin.describeAcl("yh");
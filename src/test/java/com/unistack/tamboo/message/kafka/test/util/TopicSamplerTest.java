@@ -0,0 +1,98 @@
+package com.unistack.tamboo.message.kafka.test.util;
+
+import com.google.common.collect.Maps;
+import com.unistack.tamboo.message.kafka.util.TopicSampler;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * @author Gyges Zean
+ * @date 2026/10/17
+ */
+public class TopicSamplerTest {
+
+    private static TopicPartition tp(int partition) {
+        return new TopicPartition("t", partition);
+    }
+
+
+    private static int sum(Map<TopicPartition, Integer> allocation) {
+        int sum = 0;
+        for (Integer count : allocation.values()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+
+    @Test
+    public void proportional() {
+        Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+        ranges.put(tp(0), new long[]{0, 100});
+        ranges.put(tp(1), new long[]{0, 300});
+        Map<TopicPartition, Integer> allocation = TopicSampler.allocate(ranges, 4);
+        Assert.assertEquals(1, (int) allocation.get(tp(0)));
+        Assert.assertEquals(3, (int) allocation.get(tp(1)));
+    }
+
+
+    @Test
+    public void fewerSamplesThanPartitions() {
+        Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+        for (int i = 0; i < 5; i++) {
+            ranges.put(tp(i), new long[]{0, 10});
+        }
+        Map<TopicPartition, Integer> allocation = TopicSampler.allocate(ranges, 3);
+        Assert.assertEquals(3, allocation.size());
+        Assert.assertEquals(3, sum(allocation));
+        for (Integer count : allocation.values()) {
+            Assert.assertEquals(1, (int) count);
+        }
+    }
+
+
+    @Test
+    public void emptyPartitions() {
+        Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+        ranges.put(tp(0), new long[]{50, 50});
+        ranges.put(tp(1), new long[]{0, 10});
+        ranges.put(tp(2), new long[]{7, 7});
+        Map<TopicPartition, Integer> allocation = TopicSampler.allocate(ranges, 4);
+        Assert.assertEquals(1, allocation.size());
+        Assert.assertEquals(4, (int) allocation.get(tp(1)));
+
+        Map<TopicPartition, long[]> empty = Maps.newLinkedHashMap();
+        empty.put(tp(0), new long[]{5, 5});
+        Assert.assertTrue(TopicSampler.allocate(empty, 10).isEmpty());
+    }
+
+
+    @Test
+    public void moreSamplesThanRecords() {
+        Map<TopicPartition, long[]> ranges = Maps.newLinkedHashMap();
+        ranges.put(tp(0), new long[]{1000, 1003});
+        ranges.put(tp(1), new long[]{0, 2});
+        Map<TopicPartition, Integer> allocation = TopicSampler.allocate(ranges, 100);
+        Assert.assertEquals(3, (int) allocation.get(tp(0)));
+        Assert.assertEquals(2, (int) allocation.get(tp(1)));
+        Assert.assertArrayEquals(new long[]{1000, 1001, 1002}, TopicSampler.sampleOffsets(1000, 1003, 3));
+    }
+
+
+    @Test
+    public void sampleOffsetsAboveLogStart() {
+        long[] offsets = TopicSampler.sampleOffsets(1000, 1010, 5);
+        Assert.assertArrayEquals(new long[]{1001, 1003, 1005, 1007, 1009}, offsets);
+
+        offsets = TopicSampler.sampleOffsets(5000, 5007, 3);
+        for (int i = 0; i < offsets.length; i++) {
+            Assert.assertTrue(offsets[i] >= 5000 && offsets[i] < 5007);
+            if (i > 0) {
+                Assert.assertTrue(offsets[i] > offsets[i - 1]);
+            }
+        }
+    }
+}